@@ -0,0 +1,107 @@
+#!/usr/bin/env bash
+# Сравнение холодного старта: fat jar / AOT / AOT + AppCDS / native (если собран).
+#
+#   mvn -Paot,cds package -DskipTests        # jar, AOT-классы и target/cds
+#   mvn -Pnative native:compile -DskipTests  # опционально, нужен GraalVM
+#   docker-compose up -d postgres
+#   profiling/startup-compare.sh
+#
+# ready - от запуска процесса до первого 200 на /api/notifications/health;
+# first/second - первый и второй запрос FIRST_REQUEST сразу после готовности (Service A -> Service B).
+# В таблице медианы по RUNS запускам.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+PORT=${PORT:-18080}
+RUNS=${RUNS:-5}
+DB=${DB:-localhost:9432/notification_db}
+DB_USER=${DB_USER:-notification_user}
+DB_PASSWORD=${DB_PASSWORD:-notification_pass}
+JAVA=${JAVA:-java}
+FIRST_REQUEST=${FIRST_REQUEST:-/api/client/notifications?userId=1&limit=50}
+LOG_DIR=${LOG_DIR:-target/startup}
+
+APP_ARGS=(
+    --server.port="$PORT"
+    --app.service-a.service-b-url="http://localhost:$PORT"
+    --spring.r2dbc.url="r2dbc:postgresql://$DB"
+    --spring.r2dbc.username="$DB_USER"
+    --spring.r2dbc.password="$DB_PASSWORD"
+    --spring.datasource.url="jdbc:postgresql://$DB"
+    --spring.datasource.username="$DB_USER"
+    --spring.datasource.password="$DB_PASSWORD"
+)
+
+FAT_JAR=$(ls target/notification-service-*.jar 2>/dev/null | head -1 || true)
+CDS_JAR=$(ls target/cds/notification-service-*-cds.jar 2>/dev/null | head -1 || true)
+NATIVE=target/notification-service
+
+mkdir -p "$LOG_DIR"
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+request_ms() {
+    curl -s -o /dev/null -w '%{time_total}' "http://localhost:$PORT$FIRST_REQUEST" | awk '{ printf "%d", $1 * 1000 }'
+}
+
+# run_once <mode> <command...>: печатает "ready first second rss_mb"
+run_once() {
+    local mode=$1
+    shift
+    local start
+    start=$(now_ms)
+    "$@" "${APP_ARGS[@]}" > "$LOG_DIR/$mode.log" 2>&1 &
+    local pid=$!
+
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/api/notifications/health")" = "200" ]; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "$mode: process exited, see $LOG_DIR/$mode.log" >&2
+            return 1
+        fi
+        sleep 0.01
+    done
+    local ready=$(( $(now_ms) - start ))
+    local first second rss
+    first=$(request_ms)
+    second=$(request_ms)
+    rss=$(awk '/VmRSS/ { printf "%d", $2 / 1024 }' "/proc/$pid/status" 2>/dev/null || echo 0)
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$ready $first $second $rss"
+}
+
+run_mode() {
+    local mode=$1
+    shift
+    local results=()
+    for _ in $(seq "$RUNS"); do
+        results+=("$(run_once "$mode" "$@")")
+    done
+    local column
+    printf '%-10s' "$mode"
+    for column in 1 2 3 4; do
+        printf '%12s' "$(printf '%s\n' "${results[@]}" | awk -v c="$column" '{ print $c }' | median)"
+    done
+    printf '\n'
+}
+
+printf '%-10s%12s%12s%12s%12s\n' mode ready_ms first_ms second_ms rss_mb
+if [ -n "$FAT_JAR" ]; then
+    run_mode jar "$JAVA" -jar "$FAT_JAR"
+    run_mode aot "$JAVA" -Dspring.aot.enabled=true -jar "$FAT_JAR"
+fi
+if [ -n "$CDS_JAR" ] && [ -f target/cds/application.jsa ]; then
+    # Архив проверяет classpath как при тренировке: запуск из target/cds
+    run_mode aot+cds env -C target/cds "$JAVA" -XX:SharedArchiveFile=application.jsa -Xshare:on \
+        -Dspring.aot.enabled=true -jar "$(basename "$CDS_JAR")"
+fi
+if [ -x "$NATIVE" ]; then
+    run_mode native "$NATIVE"
+fi
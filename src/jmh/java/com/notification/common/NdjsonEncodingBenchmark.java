@@ -0,0 +1,100 @@
+package com.notification.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NDJSON-кодирование NotificationDto: Jackson2JsonEncoder из WebFlux против {@link NdjsonNotificationEncoder},
+ * которым ответы /stream и passthrough Service A пишутся в production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NdjsonEncodingBenchmark {
+
+    private static final ResolvableType DTO_TYPE = ResolvableType.forClass(NotificationDto.class);
+
+    @Param({"20", "1000"})
+    private int items;
+
+    private List<NotificationDto> notifications;
+    private Jackson2JsonEncoder encoder;
+    private NdjsonNotificationEncoder preEncoder;
+    private ObjectMapper objectMapper;
+    private DefaultDataBufferFactory bufferFactory;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        encoder = new Jackson2JsonEncoder(objectMapper);
+        preEncoder = new NdjsonNotificationEncoder();
+        bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+        LocalDateTime now = LocalDateTime.now();
+        notifications = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            notifications.add(NotificationDto.builder()
+                    .id((long) i)
+                    .userId(1L)
+                    .type("SOCIAL")
+                    .title("[SOCIAL] Social Notification " + i)
+                    .message("Social message " + i)
+                    .source("SOCIAL")
+                    .createdAt(now.minusMinutes(i))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public void webFluxEncoder(Blackhole blackhole) {
+        encoder.encode(Flux.fromIterable(notifications), bufferFactory, DTO_TYPE, MediaType.APPLICATION_NDJSON, null)
+                .doOnNext(buffer -> {
+                    blackhole.consume(buffer.readableByteCount());
+                    DataBufferUtils.release(buffer);
+                })
+                .blockLast();
+    }
+
+    @Benchmark
+    public void ndjsonNotificationEncoder(Blackhole blackhole) {
+        preEncoder.encode(Flux.fromIterable(notifications), bufferFactory)
+                .doOnNext(buffer -> {
+                    blackhole.consume(buffer.readableByteCount());
+                    DataBufferUtils.release(buffer);
+                })
+                .blockLast();
+    }
+
+    @Benchmark
+    public void objectMapperWriteValue(Blackhole blackhole) throws Exception {
+        for (NotificationDto notification : notifications) {
+            blackhole.consume(objectMapper.writeValueAsBytes(notification));
+        }
+    }
+}
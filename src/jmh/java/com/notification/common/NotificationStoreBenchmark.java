@@ -0,0 +1,219 @@
+package com.notification.common;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Один и тот же набор коротких индексных запросов через оба backend'а {@link NotificationStore}
+ * при равном размере пула. Каждая операция - пачка из {@code concurrency} одновременных запросов
+ * случайных пользователей; SampleTime дает перцентили времени пачки.
+ *
+ * <p>Нужна живая БД со схемой из миграций (по умолчанию Postgres из application.yml), параметры
+ * передаются в форк: {@code -jvmArgsAppend -Dbench.r2dbc.url=... -Dbench.jdbc.url=...}.
+ * Пустая таблица заполняется при первом запуске.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class NotificationStoreBenchmark {
+
+    private static final String[] TYPES = {"SYSTEM", "USER", "SOCIAL"};
+
+    @Param({"r2dbc", "jdbc"})
+    private String backend;
+
+    @Param({"16", "256"})
+    private int concurrency;
+
+    @Param({"20"})
+    private int pageSize;
+
+    @Param({"1000"})
+    private int users;
+
+    @Param({"200"})
+    private int rowsPerUser;
+
+    private final int poolSize = Integer.getInteger("bench.pool-size", 20);
+
+    private NotificationStore store;
+    private ConnectionPool r2dbcPool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        HikariDataSource dataSource = dataSource();
+        seed(dataSource);
+
+        if ("jdbc".equals(backend)) {
+            store = new JdbcNotificationStore(dataSource);
+            return;
+        }
+        dataSource.close();
+
+        r2dbcPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(
+                        ConnectionFactoryOptions.parse(System.getProperty("bench.r2dbc.url",
+                                        "r2dbc:postgresql://localhost:5432/notification_db")).mutate()
+                                .option(ConnectionFactoryOptions.USER, username())
+                                .option(ConnectionFactoryOptions.PASSWORD, password())
+                                .build()))
+                .initialSize(poolSize)
+                .maxSize(poolSize)
+                .maxAcquireTime(Duration.ofSeconds(3))
+                .build());
+        NotificationRepository repository = new R2dbcRepositoryFactory(new R2dbcEntityTemplate(r2dbcPool))
+                .getRepository(NotificationRepository.class);
+        store = new R2dbcNotificationStore(repository);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (store instanceof JdbcNotificationStore jdbcStore) {
+            jdbcStore.close();
+        }
+        if (r2dbcPool != null) {
+            r2dbcPool.dispose();
+        }
+    }
+
+    @Benchmark
+    public List<Notification> unreadFirstPage() {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> store.findUnreadFirstPage(randomUser(), pageSize), concurrency)
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    public List<Notification> unreadByTypeFirstPage() {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> store.findUnreadByTypeFirstPage(randomUser(),
+                        TYPES[ThreadLocalRandom.current().nextInt(TYPES.length)], pageSize), concurrency)
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    public List<Long> countUnread() {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> store.countUnreadByUserId(randomUser()), concurrency)
+                .collectList()
+                .block();
+    }
+
+    private long randomUser() {
+        return ThreadLocalRandom.current().nextLong(1, users + 1L);
+    }
+
+    private HikariDataSource dataSource() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/notification_db"));
+        config.setUsername(username());
+        config.setPassword(password());
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+        config.setConnectionTimeout(3000);
+        return new HikariDataSource(config);
+    }
+
+    private void seed(HikariDataSource dataSource) throws SQLException, IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            String schema = System.getProperty("bench.schema");
+            if (schema != null) {
+                applySchema(connection, schema);
+            }
+            try (PreparedStatement count = connection.prepareStatement(
+                    "SELECT COUNT(*) FROM notifications WHERE user_id = ?")) {
+                count.setLong(1, users);
+                try (ResultSet rs = count.executeQuery()) {
+                    rs.next();
+                    if (rs.getLong(1) > 0) {
+                        return;
+                    }
+                }
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO notifications (user_id, type, title, message, source, read, created_at) " +
+                            "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                for (long userId = 1; userId <= users; userId++) {
+                    for (int i = 0; i < rowsPerUser; i++) {
+                        String type = TYPES[i % TYPES.length];
+                        insert.setLong(1, userId);
+                        insert.setString(2, type);
+                        insert.setString(3, type + " Notification " + i);
+                        insert.setString(4, type + " message " + i);
+                        insert.setString(5, type);
+                        // Каждое четвертое прочитано, чтобы частичный индекс непрочитанных был избирательным
+                        insert.setBoolean(6, i % 4 == 0);
+                        insert.setTimestamp(7, Timestamp.valueOf(now.minusMinutes(i)));
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+            }
+        }
+    }
+
+    // Только для прогона без миграций (например, H2): DDL из ресурса на classpath
+    private static void applySchema(Connection connection, String resource) throws SQLException, IOException {
+        try (InputStream in = NotificationStoreBenchmark.class.getClassLoader().getResourceAsStream(resource);
+             Statement statement = connection.createStatement()) {
+            if (in == null) {
+                throw new IllegalArgumentException("schema resource not found: " + resource);
+            }
+            for (String sql : new String(in.readAllBytes(), StandardCharsets.UTF_8).split(";")) {
+                String ddl = sql.lines().filter(line -> !line.startsWith("--")).reduce("", (a, b) -> a + b + "\n").trim();
+                if (!ddl.isEmpty()) {
+                    statement.execute(ddl);
+                }
+            }
+        }
+    }
+
+    private static String username() {
+        return System.getProperty("bench.username", "notification_user");
+    }
+
+    private static String password() {
+        return System.getProperty("bench.password", "notification_pass");
+    }
+}
@@ -0,0 +1,131 @@
+package com.notification.common;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость хопа Service B -> Service A на одно уведомление: NDJSON (NdjsonNotificationEncoder +
+ * Jackson2JsonDecoder, как в WebClient) против Smile-потока из {@link SmileCodecConfig}.
+ * Размер ответа в байтах на уведомление - вторичная метрика bytesPerNotification ({@link WireSize}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final int ITEMS = 1000;
+    private static final ResolvableType DTO_TYPE = ResolvableType.forClass(NotificationDto.class);
+
+    @Param({"ndjson", "smile"})
+    private String format;
+
+    private List<NotificationDto> notifications;
+    private DefaultDataBufferFactory bufferFactory;
+    private NdjsonNotificationEncoder ndjsonEncoder;
+    private Jackson2SmileEncoder smileEncoder;
+    private Decoder<Object> decoder;
+    private MimeType mimeType;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        bufferFactory = DefaultDataBufferFactory.sharedInstance;
+        ndjsonEncoder = new NdjsonNotificationEncoder();
+        SmileCodecConfig smileCodecs = new SmileCodecConfig();
+        smileEncoder = smileCodecs.notificationSmileEncoder();
+        boolean smile = "smile".equals(format);
+        mimeType = smile ? SmileCodecConfig.SMILE_STREAM : MediaType.APPLICATION_NDJSON;
+        decoder = smile
+                ? smileCodecs.notificationSmileDecoder()
+                : new Jackson2JsonDecoder(Jackson2ObjectMapperBuilder.json().build());
+
+        String[] types = {"SYSTEM", "USER", "SOCIAL"};
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        notifications = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            String type = types[i % types.length];
+            notifications.add(NotificationDto.builder()
+                    .id(1_000_000L + i)
+                    .userId(42L)
+                    .type(type)
+                    .title("[" + type + "] " + type + " Notification " + i)
+                    .message(type + " message " + i)
+                    .source(type)
+                    .createdAt(now.minusMinutes(i))
+                    .cursor(new StreamCursor(now.minusMinutes(i), 1_000_000L + i).encode())
+                    .build());
+        }
+
+        DataBuffer joined = bufferFactory.join(encode().collectList().block());
+        encoded = new byte[joined.readableByteCount()];
+        joined.read(encoded);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void encodeStream(Blackhole blackhole, WireSize size) {
+        size.bytesPerNotification = encoded.length / ITEMS;
+        encode().doOnNext(buffer -> {
+                    blackhole.consume(buffer.readableByteCount());
+                    DataBufferUtils.release(buffer);
+                })
+                .blockLast();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void decodeStream(Blackhole blackhole) {
+        // Декодер освобождает входные буферы сам; wrap не копирует массив
+        decoder.decode(Flux.just(bufferFactory.wrap(encoded)), DTO_TYPE, mimeType, null)
+                .doOnNext(blackhole::consume)
+                .blockLast();
+    }
+
+    /**
+     * Размер закодированного потока: EVENTS не нормируются на время, поэтому значение выводится
+     * рядом с ns/op как есть.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WireSize {
+        public long bytesPerNotification;
+    }
+
+    private Flux<DataBuffer> encode() {
+        Flux<NotificationDto> source = Flux.fromIterable(notifications);
+        return "smile".equals(format)
+                ? smileEncoder.encode(source, bufferFactory, DTO_TYPE, mimeType, null)
+                : ndjsonEncoder.encode(source, bufferFactory);
+    }
+}
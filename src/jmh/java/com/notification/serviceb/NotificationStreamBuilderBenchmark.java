@@ -0,0 +1,79 @@
+package com.notification.serviceb;
+
+import com.notification.common.NotificationDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * buildNotificationStream на синтетических источниках разного размера и шаг форматирования.
+ * Запускать с -prof gc (включен в профиле jmh), чтобы видеть allocation rate рядом с throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationStreamBuilderBenchmark {
+
+    @Param({"3", "100", "10000"})
+    private int sourceSize;
+
+    @Param({"10", "1000"})
+    private int limit;
+
+    @Param({"", "SOCIAL"})
+    private String filter;
+
+    private NotificationStreamBuilder builder;
+    private NotificationDto notification;
+
+    @Setup
+    public void setUp() {
+        List<NotificationSource> sources = List.of(
+                new SyntheticNotificationSource("SYSTEM", "System", 0, 0, sourceSize),
+                new SyntheticNotificationSource("USER", "User", 100, 3, sourceSize),
+                new SyntheticNotificationSource("SOCIAL", "Social", 200, 6, sourceSize));
+
+        builder = new NotificationStreamBuilder(null, sources, new NotificationSinkRegistry(), new SimpleMeterRegistry(), null);
+
+        LocalDateTime createdAt = LocalDateTime.now();
+        notification = NotificationDto.builder()
+                .id(1L)
+                .userId(1L)
+                .type("SOCIAL")
+                .title("Social Notification 1")
+                .message("Social message 1")
+                .source("SOCIAL")
+                .createdAt(createdAt)
+                .build();
+    }
+
+    @Benchmark
+    public void buildNotificationStream(Blackhole blackhole) {
+        builder.buildNotificationStream(1L, limit, filter)
+                .doOnNext(blackhole::consume)
+                .blockLast();
+    }
+
+    @Benchmark
+    public NotificationDto formatNotification() {
+        // DTO неизменяемый: исходный экземпляр не портится между вызовами
+        return builder.format(notification);
+    }
+}
@@ -0,0 +1,60 @@
+package com.notification.loadtest;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Параметры прогона из аргументов вида --key=value.
+ */
+final class LoadTestConfig {
+
+    final int rate;
+    final int durationSeconds;
+    final int warmupSeconds;
+    final int users;
+    final int limit;
+    final String filter;
+    final List<String> endpoints;
+    final String source;
+    final String backend;
+    final int rowsPerUser;
+    final long seed;
+    final Path output;
+
+    private LoadTestConfig(Map<String, String> args) {
+        this.rate = Integer.parseInt(args.getOrDefault("rate", "200"));
+        this.durationSeconds = Integer.parseInt(args.getOrDefault("duration", "20"));
+        this.warmupSeconds = Integer.parseInt(args.getOrDefault("warmup", "10"));
+        this.users = Integer.parseInt(args.getOrDefault("users", "10"));
+        this.limit = Integer.parseInt(args.getOrDefault("limit", "20"));
+        this.filter = args.getOrDefault("filter", "");
+        this.endpoints = Arrays.asList(args.getOrDefault("endpoints", "client,stream").split(","));
+        this.source = args.getOrDefault("source", "synthetic");
+        this.backend = args.getOrDefault("backend", "r2dbc");
+        this.rowsPerUser = Integer.parseInt(args.getOrDefault("rows-per-user", "1000"));
+        this.seed = Long.parseLong(args.getOrDefault("seed", "42"));
+        this.output = Path.of(args.getOrDefault("output", "target/loadtest"));
+    }
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return new LoadTestConfig(values);
+    }
+
+    String path(String endpoint) {
+        return switch (endpoint) {
+            case "client" -> "/api/client/notifications";
+            case "stream" -> "/api/notifications/stream";
+            default -> throw new IllegalArgumentException("Unknown endpoint: " + endpoint);
+        };
+    }
+}
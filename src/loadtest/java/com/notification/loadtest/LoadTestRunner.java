@@ -0,0 +1,237 @@
+package com.notification.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.notification.Application;
+import com.notification.common.NotificationDto;
+import com.notification.serviceb.NotificationBatchWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный прогон в одной JVM (заменил curl-цикл load_test_simple.sh).
+ * <p>
+ * Поднимает приложение на случайном порту (H2 вместо Postgres, без LISTEN), подает запросы
+ * с постоянной частотой (open model - следующий запрос не ждет предыдущий) и пишет в JSON
+ * p50/p99/p999 времени до первого байта и полного ответа. Задержка считается от запланированного
+ * момента отправки, поэтому очередь на стороне клиента не прячет деградацию (coordinated omission).
+ */
+@Slf4j
+public final class LoadTestRunner {
+
+    private static final String[] TYPES = {"SYSTEM", "USER", "SOCIAL"};
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+
+        try (ConfigurableApplicationContext context = startApplication(config)) {
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            if ("repository".equals(config.source)) {
+                seed(context.getBean(NotificationBatchWriter.class), config);
+            }
+
+            WebClient client = createClient(port);
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (String endpoint : config.endpoints) {
+                log.info("Warming up {} for {}s at {} rps", endpoint, config.warmupSeconds, config.rate);
+                run(client, config, endpoint, config.warmupSeconds);
+
+                log.info("Measuring {} for {}s at {} rps", endpoint, config.durationSeconds, config.rate);
+                results.add(run(client, config, endpoint, config.durationSeconds));
+            }
+
+            writeReport(config, results);
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(LoadTestConfig config) {
+        // Аргументы командной строки перекрывают application.yml
+        return new SpringApplicationBuilder(Application.class).run(
+                "--server.port=0",
+                "--spring.r2dbc.url=r2dbc:h2:mem:///loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.r2dbc.username=sa",
+                "--spring.r2dbc.password=",
+                // Та же in-memory база H2 для JDBC backend
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--app.service-b.repository-backend=" + config.backend,
+                "--spring.sql.init.mode=always",
+                "--spring.sql.init.schema-locations=classpath:loadtest-schema.sql",
+                "--spring.flyway.enabled=false",
+                "--app.service-b.live.enabled=false",
+                "--app.service-b.partitions.maintenance-enabled=false",
+                "--app.service-b.stream-source=" + config.source,
+                "--app.access-log.slow-only=true",
+                "--logging.level.com.notification=WARN",
+                "--logging.level.com.notification.loadtest=INFO");
+    }
+
+    private static void seed(NotificationBatchWriter writer, LoadTestConfig config) {
+        LocalDateTime now = LocalDateTime.now();
+        for (long userId = 1; userId <= config.users; userId++) {
+            List<NotificationDto> rows = new ArrayList<>(config.rowsPerUser);
+            for (int i = 0; i < config.rowsPerUser; i++) {
+                String type = TYPES[i % TYPES.length];
+                rows.add(NotificationDto.builder()
+                        .userId(userId)
+                        .type(type)
+                        .title(type + " Notification " + i)
+                        .message(type + " message " + i)
+                        .source(type)
+                        .createdAt(now.minusMinutes(i))
+                        .build());
+            }
+            writer.write(userId, rows).block();
+        }
+        log.info("Seeded {} rows for {} users", (long) config.rowsPerUser * config.users, config.users);
+    }
+
+    private static WebClient createClient(int port) {
+        ConnectionProvider provider = ConnectionProvider.builder("loadtest")
+                .maxConnections(2000)
+                .pendingAcquireMaxCount(-1)
+                .build();
+
+        return WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(provider)))
+                .build();
+    }
+
+    private static Map<String, Object> run(WebClient client, LoadTestConfig config, String endpoint, int seconds) {
+        long total = (long) config.rate * seconds;
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / config.rate;
+        Histogram firstByte = new ConcurrentHistogram(3);
+        Histogram full = new ConcurrentHistogram(3);
+        AtomicLong errors = new AtomicLong();
+        SplittableRandom random = new SplittableRandom(config.seed);
+        long[] userIds = random.longs(total, 1, config.users + 1L).toArray();
+        String path = config.path(endpoint);
+        long startNanos = System.nanoTime();
+
+        Flux.interval(Duration.ofNanos(periodNanos))
+                .take(total)
+                .flatMap(tick -> {
+                    long intendedStart = startNanos + tick * periodNanos;
+                    return request(client, path, userIds[tick.intValue()], config)
+                            .doOnNext(first -> firstByte.recordValue(micros(first - intendedStart)))
+                            .then(Mono.fromRunnable(() -> full.recordValue(micros(System.nanoTime() - intendedStart))))
+                            .onErrorResume(error -> {
+                                errors.incrementAndGet();
+                                return Mono.empty();
+                            });
+                }, Integer.MAX_VALUE)
+                .blockLast();
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("endpoint", path);
+        result.put("targetRate", config.rate);
+        result.put("achievedRate", (total - errors.get()) * 1e9 / elapsedNanos);
+        result.put("requests", total);
+        result.put("errors", errors.get());
+        result.put("timeToFirstByteMicros", summary(firstByte));
+        result.put("fullResponseMicros", summary(full));
+        log.info("{}: p50={}us p99={}us p999={}us (full), errors={}", path,
+                full.getValueAtPercentile(50), full.getValueAtPercentile(99), full.getValueAtPercentile(99.9),
+                errors.get());
+        return result;
+    }
+
+    // Публикует момент прихода первого чанка тела; завершается после последнего
+    private static Flux<Long> request(WebClient client, String path, long userId, LoadTestConfig config) {
+        return client.get()
+                .uri(builder -> {
+                    builder.path(path).queryParam("userId", userId).queryParam("limit", config.limit);
+                    if (!config.filter.isEmpty()) {
+                        builder.queryParam("filter", config.filter);
+                    }
+                    return builder.build();
+                })
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .index()
+                .doOnNext(indexed -> DataBufferUtils.release(indexed.getT2()))
+                .filter(indexed -> indexed.getT1() == 0)
+                .map(indexed -> System.nanoTime());
+    }
+
+    private static long micros(long nanos) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    private static Map<String, Object> summary(Histogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("mean", histogram.getMean());
+        summary.put("p50", histogram.getValueAtPercentile(50));
+        summary.put("p99", histogram.getValueAtPercentile(99));
+        summary.put("p999", histogram.getValueAtPercentile(99.9));
+        summary.put("max", histogram.getMaxValue());
+        return summary;
+    }
+
+    private static void writeReport(LoadTestConfig config, List<Map<String, Object>> results) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("commit", gitCommit());
+        report.put("source", config.source);
+        report.put("backend", config.backend);
+        report.put("rate", config.rate);
+        report.put("durationSeconds", config.durationSeconds);
+        report.put("users", config.users);
+        report.put("limit", config.limit);
+        report.put("filter", config.filter);
+        report.put("seed", config.seed);
+        report.put("results", results);
+
+        Files.createDirectories(config.output);
+        Path file = config.output.resolve("loadtest-" + System.currentTimeMillis() + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        log.info("Report written to {}", file.toAbsolutePath());
+    }
+
+    private static String gitCommit() {
+        try {
+            Process process = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").start();
+            String commit = new String(process.getInputStream().readAllBytes()).trim();
+            return process.waitFor() == 0 ? commit : "unknown";
+        } catch (IOException e) {
+            return "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,43 @@
+-- H2-аналог миграций для нагрузочного прогона (Flyway-миграции с plpgsql в H2 не применяются).
+-- Партиций и частичных индексов из V3 в H2 нет, поэтому индекс ленты - полный.
+CREATE TABLE IF NOT EXISTS notifications (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    message VARCHAR(4000),
+    source VARCHAR(50),
+    read BOOLEAN DEFAULT false,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    read_at TIMESTAMP,
+    dedup_key VARCHAR(128)
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_id_read ON notifications(user_id, read);
+CREATE INDEX IF NOT EXISTS idx_notifications_feed ON notifications(user_id, read, created_at DESC, id DESC);
+
+-- В Postgres id берется из notifications_id_seq; здесь отдельный диапазон, чтобы id не пересекались
+CREATE TABLE IF NOT EXISTS broadcast_notifications (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY (START WITH 1000000000) PRIMARY KEY,
+    type VARCHAR(50) DEFAULT 'SYSTEM' NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    message VARCHAR(4000),
+    source VARCHAR(50),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS broadcast_read_watermarks (
+    user_id BIGINT PRIMARY KEY,
+    read_up_to_created_at TIMESTAMP NOT NULL,
+    read_up_to_id BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+-- Пакетная запись (NotificationBatchWriter) использует Postgres-специфичный CTE с nextval; таблица здесь ради совпадения схемы
+CREATE TABLE IF NOT EXISTS notification_dedup_keys (
+    user_id BIGINT NOT NULL,
+    dedup_key VARCHAR(128) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    PRIMARY KEY (user_id, dedup_key)
+);
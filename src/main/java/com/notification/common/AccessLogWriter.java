@@ -0,0 +1,132 @@
+package com.notification.common;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Асинхронный access-log: фиксированное кольцо заранее созданных записей.
+ * Потоки запросов только заполняют слот (без форматирования строк), отдельный daemon-поток
+ * вычитывает кольцо и пишет в лог. При переполнении запись отбрасывается, запрос не ждет.
+ * Пустое кольцо drainer не опрашивает: он спит до сигнала от первой следующей записи
+ * и затем вычитывает все накопившееся подряд.
+ */
+@Slf4j
+@Component
+public class AccessLogWriter {
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running;
+    // drainer собирается уснуть или спит: следующий append должен его разбудить
+    private volatile boolean drainerWaiting;
+    private Thread drainer;
+
+    public AccessLogWriter(@Value("${app.access-log.buffer-size:8192}") int bufferSize,
+                           MeterRegistry meterRegistry) {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        Gauge.builder("access.log.dropped", dropped, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("access.log.pending", this, w -> w.claimed.get() - w.consumed.get()).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        drainer = new Thread(this::drain, "access-log-writer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join(1000);
+    }
+
+    public boolean append(HttpMethod method, String path, String query, int status, long durationNanos) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() >= slots.length) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.method = method;
+        slot.path = path;
+        slot.query = query;
+        slot.status = status;
+        slot.durationNanos = durationNanos;
+        // volatile-запись публикует слот для drainer-потока
+        slot.sequence = sequence;
+        if (drainerWaiting) {
+            drainerWaiting = false;
+            LockSupport.unpark(drainer);
+        }
+        return true;
+    }
+
+    private void drain() {
+        while (running || consumed.get() < claimed.get()) {
+            long next = consumed.get();
+            Slot slot = slots[(int) (next & mask)];
+            if (slot.sequence != next) {
+                if (!running && next >= claimed.get()) {
+                    break;
+                }
+                // Флаг ставится до повторной проверки слота: запись, опубликованная после проверки,
+                // увидит флаг и разбудит поток (обе стороны - volatile)
+                drainerWaiting = true;
+                if (running && slot.sequence != next) {
+                    LockSupport.park(this);
+                }
+                drainerWaiting = false;
+                continue;
+            }
+
+            write(slot);
+            slot.method = null;
+            slot.path = null;
+            slot.query = null;
+            consumed.lazySet(next + 1);
+        }
+    }
+
+    private void write(Slot slot) {
+        long micros = slot.durationNanos / 1_000;
+        if (slot.query != null) {
+            log.info("{} {}?{} {} {}us", slot.method, slot.path, slot.query, slot.status, micros);
+        } else {
+            log.info("{} {} {} {}us", slot.method, slot.path, slot.status, micros);
+        }
+    }
+
+    private static final class Slot {
+        private volatile long sequence = -1;
+        private HttpMethod method;
+        private String path;
+        private String query;
+        private int status;
+        private long durationNanos;
+    }
+}
@@ -0,0 +1,205 @@
+package com.notification.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Builder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Admission control для стримов одного endpoint: глобальный лимит одновременных стримов,
+ * подстраиваемый по задержке (gradient-алгоритм), и жесткий лимит in-flight на userId.
+ * Сверх лимита запрос сразу получает {@link ConcurrencyLimitExceededException}, не занимая пул соединений.
+ *
+ * <p>Сигнал задержки - время до первого элемента (или до завершения пустого стрима): оно отражает
+ * ожидание соединения и запроса в БД и не зависит от длины стрима.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final String endpoint;
+    private final Settings settings;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentHashMap<Long, AtomicInteger> inFlightByUser = new ConcurrentHashMap<>();
+
+    // Состояние алгоритма меняется под монитором: один апдейт на запрос, а не на элемент
+    private double estimatedLimit;
+    private double longRttNanos;
+    private long samples;
+    private volatile int limit;
+
+    private final Counter accepted;
+    private final Counter rejectedGlobal;
+    private final Counter rejectedUser;
+    private final Counter drops;
+
+    public AdaptiveConcurrencyLimiter(String endpoint, Settings settings, MeterRegistry meterRegistry) {
+        this.endpoint = endpoint;
+        this.settings = settings;
+        this.estimatedLimit = settings.initialLimit;
+        this.limit = settings.initialLimit;
+
+        Gauge.builder("stream.limiter.limit", this, l -> l.limit)
+                .description("Current adaptive concurrency limit")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        Gauge.builder("stream.limiter.in-flight", inFlight, AtomicInteger::get)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        Gauge.builder("stream.limiter.users", inFlightByUser, ConcurrentHashMap::size)
+                .description("Users with at least one in-flight stream")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        Gauge.builder("stream.limiter.rtt.long", this, l -> l.longRttNanos / 1_000_000.0)
+                .description("Long-term latency baseline, ms")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        accepted = requests(meterRegistry, "accepted");
+        rejectedGlobal = requests(meterRegistry, "rejected-global");
+        rejectedUser = requests(meterRegistry, "rejected-user");
+        drops = Counter.builder("stream.limiter.drops")
+                .description("Timeouts and early cancellations that triggered a multiplicative limit decrease")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Подписывается на stream только если запрос прошел оба лимита; слот освобождается
+     * при любом терминальном сигнале, включая отмену клиентом.
+     */
+    public <T> Flux<T> limit(Long userId, Supplier<Flux<T>> stream) {
+        return Flux.defer(() -> {
+            if (!tryAcquireUser(userId)) {
+                rejectedUser.increment();
+                return Flux.error(new ConcurrencyLimitExceededException(
+                        "Too many concurrent streams for userId " + userId, settings.retryAfter));
+            }
+            if (!tryAcquireGlobal()) {
+                releaseUser(userId);
+                rejectedGlobal.increment();
+                return Flux.error(new ConcurrencyLimitExceededException(
+                        "Service is overloaded, concurrency limit " + limit + " reached", settings.retryAfter));
+            }
+            accepted.increment();
+
+            long startNanos = System.nanoTime();
+            boolean[] sampled = new boolean[1];
+            return stream.get()
+                    .doOnEach(signal -> {
+                        if (!sampled[0] && !signal.isOnSubscribe()) {
+                            sampled[0] = true;
+                            if (signal.isOnError() && signal.getThrowable() instanceof TimeoutException) {
+                                onDrop();
+                            } else if (!signal.isOnError()) {
+                                onSample(System.nanoTime() - startNanos, inFlight.get());
+                            }
+                        }
+                    })
+                    .doFinally(signal -> {
+                        // Отмена до первого элемента - как правило таймаут вызывающей стороны (Service A)
+                        if (signal == SignalType.CANCEL && !sampled[0]) {
+                            onDrop();
+                        }
+                        inFlight.decrementAndGet();
+                        releaseUser(userId);
+                    });
+        });
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    private boolean tryAcquireGlobal() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean tryAcquireUser(Long userId) {
+        boolean[] acquired = new boolean[1];
+        inFlightByUser.compute(userId, (id, count) -> {
+            if (count == null) {
+                count = new AtomicInteger();
+            }
+            if (count.get() < settings.maxPerUser) {
+                count.incrementAndGet();
+                acquired[0] = true;
+            }
+            return count.get() == 0 ? null : count;
+        });
+        return acquired[0];
+    }
+
+    private void releaseUser(Long userId) {
+        inFlightByUser.computeIfPresent(userId, (id, count) -> count.decrementAndGet() == 0 ? null : count);
+    }
+
+    private synchronized void onSample(long rttNanos, int currentInFlight) {
+        if (samples++ == 0) {
+            longRttNanos = rttNanos;
+            return;
+        }
+        // База - EWMA по длинному окну; если текущая задержка вдвое ниже базы (нагрузка спала),
+        // база быстрее подтягивается вниз, чтобы не держать завышенный лимит
+        longRttNanos += (rttNanos - longRttNanos) / settings.longWindow;
+        if (longRttNanos / rttNanos > 2.0) {
+            longRttNanos *= 0.95;
+        }
+
+        // Пока задержка в пределах tolerance от базы, gradient = 1 и лимит растет на sqrt(limit);
+        // при деградации лимит сжимается вплоть до половины за шаг
+        double gradient = Math.max(0.5, Math.min(1.0, settings.tolerance * longRttNanos / rttNanos));
+        // Не раздуваем лимит, пока реальная нагрузка далека от него
+        if (gradient == 1.0 && currentInFlight < estimatedLimit / 2) {
+            return;
+        }
+        double queueSize = Math.sqrt(estimatedLimit);
+        double newLimit = estimatedLimit * gradient + queueSize;
+        newLimit = estimatedLimit * (1 - settings.smoothing) + newLimit * settings.smoothing;
+        update(newLimit);
+    }
+
+    private synchronized void onDrop() {
+        drops.increment();
+        update(estimatedLimit * settings.backoffRatio);
+    }
+
+    private void update(double newLimit) {
+        estimatedLimit = Math.max(settings.minLimit, Math.min(settings.maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    private Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("stream.limiter.requests")
+                .tags("endpoint", endpoint, "result", result)
+                .register(meterRegistry);
+    }
+
+    @Builder
+    public record Settings(int initialLimit, int minLimit, int maxLimit, int maxPerUser,
+                           double tolerance, double smoothing, double backoffRatio,
+                           int longWindow, Duration retryAfter) {
+
+        public Settings {
+            if (minLimit <= 0 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+                throw new IllegalArgumentException("limiter limits must satisfy 0 < min <= initial <= max");
+            }
+            if (maxPerUser <= 0) {
+                throw new IllegalArgumentException("limiter max-per-user must be positive");
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.notification.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchResult {
+    private long batch;
+    private int accepted;
+    private int failed;
+    // Повторы по dedup_key: не записаны, повторять их не нужно
+    private int duplicates;
+    private String error;
+}
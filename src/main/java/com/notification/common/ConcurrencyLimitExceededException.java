@@ -0,0 +1,20 @@
+package com.notification.common;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Запрос отклонен admission control: исчерпан глобальный адаптивный лимит или лимит на userId.
+ * {@link GlobalExceptionHandler} отвечает на него 429 с заголовком Retry-After.
+ */
+@Getter
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ConcurrencyLimitExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,76 @@
+package com.notification.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Отдельный {@link AdaptiveConcurrencyLimiter} на каждый stream endpoint: у Service A и Service B
+ * разные узкие места (пул WebClient и пул R2DBC), и при транспорте http на одном узле запрос
+ * не должен дважды учитываться в одном лимите.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimiters {
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    @Value("${app.limiter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.limiter.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${app.limiter.min-limit:4}")
+    private int minLimit;
+
+    @Value("${app.limiter.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${app.limiter.max-per-user:4}")
+    private int maxPerUser;
+
+    @Value("${app.limiter.tolerance:2.0}")
+    private double tolerance;
+
+    @Value("${app.limiter.smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${app.limiter.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${app.limiter.long-window:600}")
+    private int longWindow;
+
+    @Value("${app.limiter.retry-after:1s}")
+    private Duration retryAfter;
+
+    public <T> Flux<T> limit(String endpoint, Long userId, Supplier<Flux<T>> stream) {
+        if (!enabled) {
+            return Flux.defer(stream);
+        }
+        return limiters.computeIfAbsent(endpoint, this::create).limit(userId, stream);
+    }
+
+    private AdaptiveConcurrencyLimiter create(String endpoint) {
+        AdaptiveConcurrencyLimiter.Settings settings = AdaptiveConcurrencyLimiter.Settings.builder()
+                .initialLimit(initialLimit)
+                .minLimit(minLimit)
+                .maxLimit(maxLimit)
+                .maxPerUser(maxPerUser)
+                .tolerance(tolerance)
+                .smoothing(smoothing)
+                .backoffRatio(backoffRatio)
+                .longWindow(longWindow)
+                .retryAfter(retryAfter)
+                .build();
+        return new AdaptiveConcurrencyLimiter(endpoint, settings, meterRegistry);
+    }
+}
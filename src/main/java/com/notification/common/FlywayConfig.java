@@ -0,0 +1,25 @@
+package com.notification.common;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Slf4j
+@Configuration
+public class FlywayConfig {
+
+    // С AOT бин Flyway фиксируется при сборке и spring.flyway.enabled=false в runtime его уже не убирает;
+    // флаг читается здесь, чтобы запуск без БД (тренировочный прогон AppCDS) не шел в migrate
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(@Value("${spring.flyway.enabled:true}") boolean enabled) {
+        return flyway -> {
+            if (enabled) {
+                flyway.migrate();
+            } else {
+                log.info("spring.flyway.enabled=false, migrations are skipped");
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.notification.common;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Проверка после миграций, до старта фоновых задач (они запускаются на ApplicationReadyEvent):
+ * при spring.flyway.enabled=true схема должна быть доведена до последней миграции.
+ * Иначе NOTIFY-триггер (V2), партиции (V3), рассылки (V4) и dedup-ключи (V5) отсутствуют
+ * и ошибки всплывают только в runtime.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FlywayMigrationCheck {
+
+    private final ObjectProvider<Flyway> flyway;
+
+    @Value("${spring.flyway.enabled:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void verify() {
+        if (!enabled) {
+            log.info("Flyway is disabled, database schema is managed externally");
+            return;
+        }
+        Flyway instance = flyway.getIfAvailable();
+        if (instance == null) {
+            throw new IllegalStateException("spring.flyway.enabled=true but Flyway is not configured: set spring.flyway.url");
+        }
+        MigrationInfoService info = instance.info();
+        MigrationInfo[] pending = info.pending();
+        if (pending.length > 0) {
+            throw new IllegalStateException(pending.length + " Flyway migrations are pending, latest is "
+                    + pending[pending.length - 1].getVersion());
+        }
+        log.info("Database schema is at version {}", info.current() != null ? info.current().getVersion() : "<empty>");
+    }
+}
@@ -1,6 +1,7 @@
 package com.notification.common;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -33,6 +34,26 @@ public class GlobalExceptionHandler {
                 .body(errorResponse));
     }
 
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public Mono<ResponseEntity<ErrorResponse>> handleConcurrencyLimitExceededException(
+            ConcurrencyLimitExceededException ex, ServerWebExchange exchange) {
+
+        log.debug("Request rejected by concurrency limiter: {}", ex.getMessage());
+
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .message(ex.getMessage())
+                .error("Too Many Requests")
+                .timestamp(LocalDateTime.now())
+                .path(exchange.getRequest().getPath().value())
+                .build();
+
+        return Mono.just(ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(errorResponse));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public Mono<ResponseEntity<ErrorResponse>> handleRuntimeException(
             RuntimeException ex, ServerWebExchange exchange) {
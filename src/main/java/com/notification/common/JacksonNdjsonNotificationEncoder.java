@@ -0,0 +1,41 @@
+package com.notification.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+
+import java.util.Map;
+
+/**
+ * {@link NdjsonNotificationEncoder} через ObjectMapper - при app.codec.pre-encoded-ndjson=false:
+ * те же точки вызова (ответы /stream, passthrough Service A, строки кэша ленты) пишут строки Jackson'ом.
+ */
+class JacksonNdjsonNotificationEncoder extends NdjsonNotificationEncoder {
+
+    private final ObjectMapper objectMapper;
+
+    JacksonNdjsonNotificationEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public DataBuffer encodeValue(NotificationDto value, DataBufferFactory bufferFactory,
+                                  @Nullable ResolvableType valueType, @Nullable MimeType mimeType,
+                                  @Nullable Map<String, Object> hints) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new EncodingException("Failed to encode notification " + value.id(), e);
+        }
+        DataBuffer buffer = bufferFactory.allocateBuffer(json.length + 1);
+        buffer.write(json);
+        buffer.write((byte) '\n');
+        return buffer;
+    }
+}
@@ -0,0 +1,200 @@
+package com.notification.common;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Backend на блокирующем JDBC: каждый запрос выполняется на отдельном виртуальном потоке,
+ * так что ожидание соединения из пула и ответа БД не занимает ни event loop, ни platform-потоки.
+ * Параллелизм ограничен размером пула {@code dataSource}, а не числом потоков.
+ *
+ * <p>SQL совпадает с {@link NotificationRepository}; страницы ограничены LIMIT, поэтому
+ * результат читается целиком и отдается как Flux. TIMESTAMP передается как LocalDateTime
+ * (setObject/getObject), как в R2DBC: через java.sql.Timestamp значения в переходе на летнее
+ * время сдвигались бы по часовому поясу JVM.
+ */
+public class JdbcNotificationStore implements NotificationStore, Closeable {
+
+    private static final String SELECT_UNREAD = "SELECT * FROM notifications WHERE user_id = ? AND read = false ";
+    private static final String AFTER = "AND created_at <= ? AND (created_at, id) < (?, ?) ";
+    private static final String ORDER = "ORDER BY created_at DESC, id DESC LIMIT ?";
+
+    private static final String FIRST_PAGE = SELECT_UNREAD + ORDER;
+    private static final String PAGE_AFTER = SELECT_UNREAD + AFTER + ORDER;
+    private static final String BY_TYPE_FIRST_PAGE = SELECT_UNREAD + "AND type = ? " + ORDER;
+    private static final String BY_TYPE_PAGE_AFTER = SELECT_UNREAD + "AND type = ? " + AFTER + ORDER;
+
+    private static final String DIGEST_GROUPS = "SELECT g.type, g.bucket, g.count, g.first_at, g.last_at, " +
+            "(SELECT n.title FROM notifications n WHERE n.user_id = ? AND n.read = false " +
+            "AND n.type = g.type AND n.created_at = g.last_at ORDER BY n.id DESC LIMIT 1) AS latest_title " +
+            "FROM (SELECT type, date_bin(? * INTERVAL '1 second', created_at, TIMESTAMP '1970-01-01') AS bucket, " +
+            "COUNT(*) AS count, MIN(created_at) AS first_at, MAX(created_at) AS last_at " +
+            "FROM notifications WHERE user_id = ? AND read = false ";
+    private static final String DIGEST_ORDER = "GROUP BY 1, 2 ORDER BY bucket DESC, last_at DESC LIMIT ?) g " +
+            "ORDER BY g.bucket DESC, g.last_at DESC";
+    private static final String DIGEST = DIGEST_GROUPS + DIGEST_ORDER;
+    private static final String DIGEST_BY_TYPE = DIGEST_GROUPS + "AND type = ? " + DIGEST_ORDER;
+
+    private static final String MARK_READ_BY_IDS = "UPDATE notifications SET read = true, read_at = ? " +
+            "WHERE user_id = ? AND read = false AND id = ANY(?)";
+    private static final String MARK_READ_UP_TO = "UPDATE notifications SET read = true, read_at = ? " +
+            "WHERE user_id = ? AND read = false AND created_at <= ? AND (created_at, id) <= (?, ?)";
+    private static final String COUNT_UNREAD = "SELECT COUNT(*) FROM notifications WHERE user_id = ? AND read = false";
+
+    private final DataSource dataSource;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Scheduler scheduler = Schedulers.fromExecutorService(executor, "jdbc-virtual");
+
+    public JdbcNotificationStore(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Flux<Notification> findUnreadFirstPage(Long userId, int limit) {
+        return query(FIRST_PAGE, userId, limit);
+    }
+
+    @Override
+    public Flux<Notification> findUnreadPageAfter(Long userId, LocalDateTime createdAt, Long id, int limit) {
+        return query(PAGE_AFTER, userId, createdAt, createdAt, id, limit);
+    }
+
+    @Override
+    public Flux<Notification> findUnreadByTypeFirstPage(Long userId, String type, int limit) {
+        return query(BY_TYPE_FIRST_PAGE, userId, type, limit);
+    }
+
+    @Override
+    public Flux<Notification> findUnreadByTypePageAfter(Long userId, String type, LocalDateTime createdAt, Long id, int limit) {
+        return query(BY_TYPE_PAGE_AFTER, userId, type, createdAt, createdAt, id, limit);
+    }
+
+    @Override
+    public Flux<NotificationDigest> findUnreadDigest(Long userId, String type, long bucketSeconds, int limit) {
+        return execute(connection -> {
+            try (PreparedStatement statement = type == null
+                    ? prepare(connection, DIGEST, userId, bucketSeconds, userId, limit)
+                    : prepare(connection, DIGEST_BY_TYPE, userId, bucketSeconds, userId, type, limit);
+                 ResultSet rs = statement.executeQuery()) {
+                List<NotificationDigest> groups = new ArrayList<>();
+                while (rs.next()) {
+                    groups.add(NotificationDigest.builder()
+                            .type(rs.getString("type"))
+                            .bucket(rs.getObject("bucket", LocalDateTime.class))
+                            .count(rs.getLong("count"))
+                            .latestTitle(rs.getString("latest_title"))
+                            .firstAt(rs.getObject("first_at", LocalDateTime.class))
+                            .lastAt(rs.getObject("last_at", LocalDateTime.class))
+                            .build());
+                }
+                return groups;
+            }
+        }).flatMapIterable(groups -> groups);
+    }
+
+    @Override
+    public Mono<Long> markReadByIds(Long userId, Long[] ids, LocalDateTime readAt) {
+        return execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(MARK_READ_BY_IDS)) {
+                Array idArray = connection.createArrayOf("bigint", ids);
+                statement.setObject(1, readAt);
+                statement.setLong(2, userId);
+                statement.setArray(3, idArray);
+                return (long) statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public Mono<Long> markReadUpTo(Long userId, LocalDateTime createdAt, Long id, LocalDateTime readAt) {
+        return execute(connection -> {
+            try (PreparedStatement statement = prepare(connection, MARK_READ_UP_TO,
+                    readAt, userId, createdAt, createdAt, id)) {
+                return (long) statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public Mono<Long> countUnreadByUserId(Long userId) {
+        return execute(connection -> {
+            try (PreparedStatement statement = prepare(connection, COUNT_UNREAD, userId);
+                 ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.dispose();
+        if (dataSource instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Flux<Notification> query(String sql, Object... params) {
+        return execute(connection -> {
+            try (PreparedStatement statement = prepare(connection, sql, params);
+                 ResultSet rs = statement.executeQuery()) {
+                List<Notification> rows = new ArrayList<>();
+                while (rs.next()) {
+                    rows.add(map(rs));
+                }
+                return rows;
+            }
+        }).flatMapIterable(rows -> rows);
+    }
+
+    private <T> Mono<T> execute(SqlFunction<T> work) {
+        return Mono.fromCallable(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                return work.apply(connection);
+            }
+        }).subscribeOn(scheduler);
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, Object... params) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < params.length; i++) {
+            statement.setObject(i + 1, params[i]);
+        }
+        return statement;
+    }
+
+    private static Notification map(ResultSet rs) throws SQLException {
+        return Notification.builder()
+                .id(rs.getLong("id"))
+                .userId(rs.getLong("user_id"))
+                .type(rs.getString("type"))
+                .title(rs.getString("title"))
+                .message(rs.getString("message"))
+                .source(rs.getString("source"))
+                .read(rs.getBoolean("read"))
+                .createdAt(rs.getObject("created_at", LocalDateTime.class))
+                .readAt(rs.getObject("read_at", LocalDateTime.class))
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface SqlFunction<T> {
+        T apply(Connection connection) throws SQLException;
+    }
+}
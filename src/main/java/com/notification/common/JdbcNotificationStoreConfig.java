@@ -0,0 +1,50 @@
+package com.notification.common;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Пул HikariCP для {@link JdbcNotificationStore}. DataSource намеренно не публикуется бином:
+ * иначе автоконфигурация Boot (sql init, health) начнет работать с ним и в режиме r2dbc.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.service-b.repository-backend", havingValue = "jdbc")
+public class JdbcNotificationStoreConfig {
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    // По умолчанию как у пула R2DBC, чтобы сравнение backend'ов шло при равном числе соединений
+    @Value("${app.service-b.jdbc.pool-size:20}")
+    private int poolSize;
+
+    @Value("${app.service-b.jdbc.connection-timeout:3s}")
+    private Duration connectionTimeout;
+
+    @Bean(destroyMethod = "close")
+    public JdbcNotificationStore jdbcNotificationStore() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("notifications-jdbc");
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+        config.setConnectionTimeout(connectionTimeout.toMillis());
+        // Пул стартует лениво: недоступная БД не валит запуск, как и в случае R2DBC
+        config.setInitializationFailTimeout(-1);
+        return new JdbcNotificationStore(new HikariDataSource(config));
+    }
+}
@@ -0,0 +1,24 @@
+package com.notification.common;
+
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+
+/**
+ * LocalDateTime из ISO-8601 с любым числом дробных знаков секунд; разделитель даты и времени -
+ * 'T' или пробел, так что прежний формат "yyyy-MM-dd HH:mm:ss" тоже принимается.
+ */
+public class LenientLocalDateTimeDeserializer extends LocalDateTimeDeserializer {
+
+    private static final DateTimeFormatter FORMAT = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .optionalStart().appendLiteral('T').optionalEnd()
+            .optionalStart().appendLiteral(' ').optionalEnd()
+            .append(DateTimeFormatter.ISO_LOCAL_TIME)
+            .toFormatter();
+
+    public LenientLocalDateTimeDeserializer() {
+        super(FORMAT);
+    }
+}
@@ -1,38 +1,59 @@
 package com.notification.common;
 
-import lombok.extern.slf4j.Slf4j;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
 
-@Slf4j
 @Component
+@RequiredArgsConstructor
 public class LoggingFilter implements WebFilter {
 
-    @Override
-    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
-        long startTime = System.currentTimeMillis();
-        String method = exchange.getRequest().getMethod().toString();
-        String path = exchange.getRequest().getPath().value();
+    private final AccessLogWriter accessLogWriter;
 
-        // ОПТИМИЗАЦИЯ: Избегаем String конкатенации в stream map
-        String queryParams = exchange.getRequest().getQueryParams().entrySet().stream()
-                .map(entry -> String.format("%s=%s", entry.getKey(), entry.getValue()))
-                .collect(Collectors.joining("&"));
+    // Доля быстрых запросов, попадающих в лог (0..1)
+    @Value("${app.access-log.sample-rate:1.0}")
+    private double sampleRate;
 
-        log.info("HTTP REQUEST - Method: {}, Path: {}, QueryParams: {}", method, path, queryParams);
+    // Запросы дольше порога и ответы 5xx пишутся всегда
+    @Value("${app.access-log.slow-threshold-ms:500}")
+    private long slowThresholdMs;
 
-        return chain.filter(exchange).doAfterTerminate(() -> {
-            long duration = System.currentTimeMillis() - startTime;
-            int status = exchange.getResponse().getStatusCode() != null ?
-                    exchange.getResponse().getStatusCode().value() : 0;
+    @Value("${app.access-log.slow-only:false}")
+    private boolean slowOnly;
 
-            log.info("HTTP RESPONSE - Method: {}, Path: {}, Status: {}, Duration: {}ms",
-                    method, path, status, duration);
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        // ОПТИМИЗАЦИЯ: Никакого форматирования на пути запроса - только nanoTime и ссылки на готовые строки
+        long startNanos = System.nanoTime();
+
+        return chain.filter(exchange).doFinally(signal -> {
+            long durationNanos = System.nanoTime() - startNanos;
+            HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+            int status = statusCode != null ? statusCode.value() : 0;
+
+            if (shouldLog(status, durationNanos)) {
+                ServerHttpRequest request = exchange.getRequest();
+                accessLogWriter.append(request.getMethod(), request.getPath().value(),
+                        request.getURI().getRawQuery(), status, durationNanos);
+            }
         });
     }
+
+    private boolean shouldLog(int status, long durationNanos) {
+        if (status >= 500 || durationNanos >= slowThresholdMs * 1_000_000L) {
+            return true;
+        }
+        if (slowOnly) {
+            return false;
+        }
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
 }
@@ -0,0 +1,33 @@
+package com.notification.common;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Либо явный список ids, либо watermark: все непрочитанные до позиции включительно. Позиция -
+ * cursor элемента стрима (upTo) или пара (upToCreatedAt, upToId); createdAt в элементах стрима
+ * нормализован для отображения, поэтому точную позицию несет только cursor.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MarkReadRequest {
+    private Long userId;
+    private List<Long> ids;
+
+    // Непрозрачный cursor из элемента стрима (StreamCursor)
+    private String upTo;
+
+    // ISO-8601 с дробными секундами (2024-01-15T10:30:00.123456): created_at хранится до микросекунд
+    @JsonDeserialize(using = LenientLocalDateTimeDeserializer.class)
+    private LocalDateTime upToCreatedAt;
+
+    private Long upToId;
+}
@@ -0,0 +1,30 @@
+package com.notification.common;
+
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Подсказки для native-image (профиль native) сверх того, что Spring AOT выводит сам.
+ * Типы контроллеров AOT находит и без этого, но NotificationDto еще читается из payload NOTIFY
+ * и кодируется в Smile, а Notification и NotificationDigest маппит R2DBC - поэтому типы перечислены явно.
+ * Lombok-билдеры - обычный код, рефлексия им не нужна.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfig.NotificationRuntimeHints.class)
+@RegisterReflectionForBinding({NotificationDto.class, Notification.class, NotificationDigest.class, BatchResult.class,
+        ErrorResponse.class, MarkReadRequest.class})
+public class NativeHintsConfig {
+
+    static class NotificationRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // FlywayAutoConfiguration добавляет миграции сам, только если Flyway включен на этапе AOT;
+            // внутренности Flyway покрывает reachability metadata repository
+            hints.resources().registerPattern("db/migration/*.sql");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.notification.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class NdjsonCodecConfig {
+
+    // Флаг выбирает реализацию бина: контроллеры и кэш ленты зовут encoder напрямую, мимо кодеков WebFlux
+    @Bean
+    public NdjsonNotificationEncoder ndjsonNotificationEncoder(
+            ObjectMapper objectMapper,
+            @Value("${app.codec.pre-encoded-ndjson:true}") boolean enabled) {
+        return enabled ? new NdjsonNotificationEncoder() : new JacksonNdjsonNotificationEncoder(objectMapper);
+    }
+
+    // Кастомные typed-кодеки идут раньше Jackson, поэтому Flux<NotificationDto> в NDJSON пишет наш encoder
+    @Bean
+    public CodecCustomizer ndjsonNotificationCodecCustomizer(
+            NdjsonNotificationEncoder encoder,
+            @Value("${app.codec.pre-encoded-ndjson:true}") boolean enabled) {
+        return configurer -> {
+            if (enabled) {
+                configurer.customCodecs().register(encoder);
+            }
+        };
+    }
+}
@@ -0,0 +1,258 @@
+package com.notification.common;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * NDJSON-кодировщик NotificationDto без Jackson: каждая строка пишется байтами прямо в DataBuffer
+ * из фабрики ответа (на Netty - пуловые буферы). Формат совпадает с Jackson-сериализацией DTO,
+ * даты в "yyyy-MM-dd HH:mm:ss" берутся из кэша уже отрендеренных байтов.
+ */
+public class NdjsonNotificationEncoder extends AbstractEncoder<NotificationDto>
+        implements HttpMessageEncoder<NotificationDto> {
+
+    private static final int DATE_CACHE_LIMIT = 4096;
+    private static final int ESTIMATED_SIZE = 256;
+
+    private static final byte[] ID = ascii("{\"id\":");
+    private static final byte[] USER_ID = ascii(",\"userId\":");
+    private static final byte[] TYPE = ascii(",\"type\":");
+    private static final byte[] TITLE = ascii(",\"title\":");
+    private static final byte[] MESSAGE = ascii(",\"message\":");
+    private static final byte[] SOURCE = ascii(",\"source\":");
+    private static final byte[] READ_TRUE = ascii(",\"read\":true");
+    private static final byte[] READ_FALSE = ascii(",\"read\":false");
+    private static final byte[] CREATED_AT = ascii(",\"createdAt\":");
+    private static final byte[] READ_AT = ascii(",\"readAt\":");
+    private static final byte[] CURSOR = ascii(",\"cursor\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] END = ascii("}\n");
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+    private static final byte[] ESCAPED_NEWLINE = ascii("\\n");
+    private static final byte[] ESCAPED_RETURN = ascii("\\r");
+    private static final byte[] ESCAPED_TAB = ascii("\\t");
+    private static final byte[] ESCAPED_UNICODE = ascii("\\u00");
+
+    private final Map<LocalDateTime, byte[]> renderedDates = new ConcurrentHashMap<>();
+
+    public NdjsonNotificationEncoder() {
+        super(MediaType.APPLICATION_NDJSON);
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
+        // Только NDJSON: для application/json остается Jackson (массив, а не строки)
+        return mimeType != null && MediaType.APPLICATION_NDJSON.isCompatibleWith(mimeType)
+                && NotificationDto.class.isAssignableFrom(elementType.toClass());
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return List.of(MediaType.APPLICATION_NDJSON);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<? extends NotificationDto> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, @Nullable MimeType mimeType,
+                                   @Nullable Map<String, Object> hints) {
+        return Flux.from(inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints));
+    }
+
+    public Flux<DataBuffer> encode(Flux<NotificationDto> notifications, DataBufferFactory bufferFactory) {
+        return notifications.map(value -> encodeValue(value, bufferFactory, null, null, null));
+    }
+
+    /**
+     * Одна NDJSON-строка (с '\n') в виде heap-массива - для кэшей, хранящих уже сериализованные элементы.
+     */
+    public byte[] encodeLine(NotificationDto value) {
+        DataBuffer buffer = encodeValue(value, DefaultDataBufferFactory.sharedInstance, null, null, null);
+        byte[] line = new byte[buffer.readableByteCount()];
+        buffer.read(line);
+        return line;
+    }
+
+    @Override
+    public DataBuffer encodeValue(NotificationDto value, DataBufferFactory bufferFactory,
+                                  @Nullable ResolvableType valueType, @Nullable MimeType mimeType,
+                                  @Nullable Map<String, Object> hints) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(ESTIMATED_SIZE);
+        try {
+            buffer.write(ID);
+            writeLong(buffer, value.id());
+            buffer.write(USER_ID);
+            writeLong(buffer, value.userId());
+            buffer.write(TYPE);
+            writeString(buffer, value.type());
+            buffer.write(TITLE);
+            writeString(buffer, value.title());
+            buffer.write(MESSAGE);
+            writeString(buffer, value.message());
+            buffer.write(SOURCE);
+            writeString(buffer, value.source());
+            buffer.write(value.read() ? READ_TRUE : READ_FALSE);
+            buffer.write(CREATED_AT);
+            writeDate(buffer, value.createdAt());
+            buffer.write(READ_AT);
+            writeDate(buffer, value.readAt());
+            if (value.cursor() != null) {
+                buffer.write(CURSOR);
+                writeString(buffer, value.cursor());
+            }
+            buffer.write(END);
+            return buffer;
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+    }
+
+    private void writeDate(DataBuffer buffer, LocalDateTime value) {
+        if (value == null) {
+            buffer.write(NULL);
+            return;
+        }
+
+        byte[] rendered = renderedDates.get(value);
+        if (rendered == null) {
+            if (renderedDates.size() >= DATE_CACHE_LIMIT) {
+                renderedDates.clear();
+            }
+            rendered = renderDate(value);
+            renderedDates.put(value, rendered);
+        }
+        buffer.write(rendered);
+    }
+
+    // "yyyy-MM-dd HH:mm:ss" в кавычках, без DateTimeFormatter
+    private static byte[] renderDate(LocalDateTime value) {
+        byte[] out = new byte[21];
+        out[0] = '"';
+        int year = value.getYear();
+        out[1] = digit(year / 1000);
+        out[2] = digit(year / 100);
+        out[3] = digit(year / 10);
+        out[4] = digit(year);
+        out[5] = '-';
+        twoDigits(out, 6, value.getMonthValue());
+        out[8] = '-';
+        twoDigits(out, 9, value.getDayOfMonth());
+        out[11] = ' ';
+        twoDigits(out, 12, value.getHour());
+        out[14] = ':';
+        twoDigits(out, 15, value.getMinute());
+        out[17] = ':';
+        twoDigits(out, 18, value.getSecond());
+        out[20] = '"';
+        return out;
+    }
+
+    private static void twoDigits(byte[] out, int offset, int value) {
+        out[offset] = digit(value / 10);
+        out[offset + 1] = digit(value);
+    }
+
+    private static byte digit(int value) {
+        return (byte) ('0' + value % 10);
+    }
+
+    private static void writeLong(DataBuffer buffer, Long value) {
+        if (value == null) {
+            buffer.write(NULL);
+            return;
+        }
+
+        long v = value;
+        if (v == Long.MIN_VALUE) {
+            buffer.write(ascii(Long.toString(v)));
+            return;
+        }
+        if (v < 0) {
+            buffer.write((byte) '-');
+            v = -v;
+        }
+
+        long divisor = 1;
+        while (v / divisor >= 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            buffer.write((byte) ('0' + (v / divisor) % 10));
+            divisor /= 10;
+        }
+    }
+
+    private static void writeString(DataBuffer buffer, String value) {
+        if (value == null) {
+            buffer.write(NULL);
+            return;
+        }
+
+        buffer.write((byte) '"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer.write((byte) '\\');
+                buffer.write((byte) c);
+            } else if (c < 0x20) {
+                writeControl(buffer, c);
+            } else if (c < 0x80) {
+                buffer.write((byte) c);
+            } else {
+                // Не-ASCII хвост строки кодируем целиком через UTF-8
+                writeEscaped(buffer, value.substring(i));
+                break;
+            }
+        }
+        buffer.write((byte) '"');
+    }
+
+    private static void writeEscaped(DataBuffer buffer, String tail) {
+        StringBuilder escaped = new StringBuilder(tail.length() + 8);
+        for (int i = 0; i < tail.length(); i++) {
+            char c = tail.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append("\\u00").append((char) HEX[c >> 4]).append((char) HEX[c & 0xF]);
+            } else {
+                escaped.append(c);
+            }
+        }
+        buffer.write(escaped.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeControl(DataBuffer buffer, char c) {
+        switch (c) {
+            case '\n' -> buffer.write(ESCAPED_NEWLINE);
+            case '\r' -> buffer.write(ESCAPED_RETURN);
+            case '\t' -> buffer.write(ESCAPED_TAB);
+            default -> {
+                buffer.write(ESCAPED_UNICODE);
+                buffer.write(HEX[c >> 4]);
+                buffer.write(HEX[c & 0xF]);
+            }
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
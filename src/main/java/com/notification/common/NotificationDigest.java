@@ -0,0 +1,29 @@
+package com.notification.common;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Сводка непрочитанных одного типа за одно окно времени (mode=digest): вместо каждой строки -
+ * количество, заголовок самого свежего уведомления и диапазон created_at.
+ * Он же - проекция GROUP BY-запроса {@link NotificationRepository#findUnreadDigest}.
+ */
+@Builder(toBuilder = true)
+public record NotificationDigest(
+        String type,
+
+        // Начало окна: created_at, округленный вниз до размера окна от 1970-01-01
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        LocalDateTime bucket,
+
+        long count,
+        String latestTitle,
+
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        LocalDateTime firstAt,
+
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        LocalDateTime lastAt) {
+}
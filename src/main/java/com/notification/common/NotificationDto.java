@@ -1,29 +1,36 @@
 package com.notification.common;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-@Builder
-public class NotificationDto {
-    private Long id;
-    private Long userId;
-    private String type;
-    private String title;
-    private String message;
-    private String source;
-    private boolean read;
+/**
+ * Неизменяемое уведомление в том виде, в каком оно уходит клиенту. Форматирование
+ * не правит экземпляр, а создает новый.
+ */
+@Builder(toBuilder = true)
+public record NotificationDto(
+        Long id,
+        Long userId,
+        String type,
+        String title,
+        String message,
+        String source,
+        boolean read,
 
-    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
-    private LocalDateTime createdAt;
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        LocalDateTime createdAt,
 
-    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
-    private LocalDateTime readAt;
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        LocalDateTime readAt,
+
+        // Токен StreamCursor для параметра cursor: продолжить ленту сразу после этого элемента
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        String cursor,
+
+        // Ключ идемпотентности от продюсера: повтор с тем же ключом для userId не создает запись
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        String dedupKey) {
 }
@@ -1,11 +1,14 @@
 package com.notification.common;
 
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+
 @Repository
 public interface NotificationRepository extends R2dbcRepository<Notification, Long> {
     Flux<Notification> findByUserId(Long userId);
@@ -18,6 +21,62 @@ public interface NotificationRepository extends R2dbcRepository<Notification, Lo
     @Query("SELECT * FROM notifications WHERE user_id = :userId AND type = :type AND read = false")
     Flux<Notification> findByUserIdAndType(Long userId, String type);
 
+    // Keyset-пагинация непрочитанных: первая страница и продолжение после (createdAt, id) без OFFSET.
+    // Читается из частичных индексов idx_notifications_unread_feed / idx_notifications_unread_type_feed;
+    // отдельное условие created_at <= :createdAt нужно для pruning партиций (row comparison его не дает)
+    @Query("SELECT * FROM notifications WHERE user_id = :userId AND read = false " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit")
+    Flux<Notification> findUnreadFirstPage(Long userId, int limit);
+
+    @Query("SELECT * FROM notifications WHERE user_id = :userId AND read = false " +
+            "AND created_at <= :createdAt AND (created_at, id) < (:createdAt, :id) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit")
+    Flux<Notification> findUnreadPageAfter(Long userId, LocalDateTime createdAt, Long id, int limit);
+
+    @Query("SELECT * FROM notifications WHERE user_id = :userId AND read = false AND type = :type " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit")
+    Flux<Notification> findUnreadByTypeFirstPage(Long userId, String type, int limit);
+
+    @Query("SELECT * FROM notifications WHERE user_id = :userId AND read = false AND type = :type " +
+            "AND created_at <= :createdAt AND (created_at, id) < (:createdAt, :id) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit")
+    Flux<Notification> findUnreadByTypePageAfter(Long userId, String type, LocalDateTime createdAt, Long id, int limit);
+
+    // Сводка непрочитанных по (type, окно времени): подсчет в БД, наружу уходит одна строка на группу.
+    // Группы строятся index-only по idx_notifications_unread_type_feed, заголовок последнего
+    // уведомления группы - точечный lookup по тому же индексу
+    @Query("SELECT g.type, g.bucket, g.count, g.first_at, g.last_at, " +
+            "(SELECT n.title FROM notifications n WHERE n.user_id = :userId AND n.read = false " +
+            "AND n.type = g.type AND n.created_at = g.last_at ORDER BY n.id DESC LIMIT 1) AS latest_title " +
+            "FROM (SELECT type, date_bin(:bucketSeconds * INTERVAL '1 second', created_at, TIMESTAMP '1970-01-01') AS bucket, " +
+            "COUNT(*) AS count, MIN(created_at) AS first_at, MAX(created_at) AS last_at " +
+            "FROM notifications WHERE user_id = :userId AND read = false GROUP BY 1, 2 " +
+            "ORDER BY bucket DESC, last_at DESC LIMIT :limit) g " +
+            "ORDER BY g.bucket DESC, g.last_at DESC")
+    Flux<NotificationDigest> findUnreadDigest(Long userId, long bucketSeconds, int limit);
+
+    @Query("SELECT g.type, g.bucket, g.count, g.first_at, g.last_at, " +
+            "(SELECT n.title FROM notifications n WHERE n.user_id = :userId AND n.read = false " +
+            "AND n.type = g.type AND n.created_at = g.last_at ORDER BY n.id DESC LIMIT 1) AS latest_title " +
+            "FROM (SELECT type, date_bin(:bucketSeconds * INTERVAL '1 second', created_at, TIMESTAMP '1970-01-01') AS bucket, " +
+            "COUNT(*) AS count, MIN(created_at) AS first_at, MAX(created_at) AS last_at " +
+            "FROM notifications WHERE user_id = :userId AND read = false AND type = :type GROUP BY 1, 2 " +
+            "ORDER BY bucket DESC, last_at DESC LIMIT :limit) g " +
+            "ORDER BY g.bucket DESC, g.last_at DESC")
+    Flux<NotificationDigest> findUnreadDigestByType(Long userId, String type, long bucketSeconds, int limit);
+
+    // Массовая отметка о прочтении одним UPDATE по idx_notifications_unread_feed
+    @Modifying
+    @Query("UPDATE notifications SET read = true, read_at = :readAt " +
+            "WHERE user_id = :userId AND read = false AND id = ANY(:ids)")
+    Mono<Long> markReadByIds(Long userId, Long[] ids, LocalDateTime readAt);
+
+    @Modifying
+    @Query("UPDATE notifications SET read = true, read_at = :readAt " +
+            "WHERE user_id = :userId AND read = false " +
+            "AND created_at <= :createdAt AND (created_at, id) <= (:createdAt, :id)")
+    Mono<Long> markReadUpTo(Long userId, LocalDateTime createdAt, Long id, LocalDateTime readAt);
+
     @Query("SELECT COUNT(*) FROM notifications WHERE user_id = :userId")
     Mono<Long> countByUserId(Long userId);
 
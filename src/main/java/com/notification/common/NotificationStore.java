@@ -0,0 +1,31 @@
+package com.notification.common;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запросы горячего пути чтения/отметки непрочитанных, не привязанные к драйверу.
+ * Реализация выбирается через app.service-b.repository-backend: r2dbc (по умолчанию) или jdbc.
+ * Семантика и SQL совпадают с одноименными методами {@link NotificationRepository}.
+ */
+public interface NotificationStore {
+
+    Flux<Notification> findUnreadFirstPage(Long userId, int limit);
+
+    Flux<Notification> findUnreadPageAfter(Long userId, LocalDateTime createdAt, Long id, int limit);
+
+    Flux<Notification> findUnreadByTypeFirstPage(Long userId, String type, int limit);
+
+    Flux<Notification> findUnreadByTypePageAfter(Long userId, String type, LocalDateTime createdAt, Long id, int limit);
+
+    // type == null - все типы
+    Flux<NotificationDigest> findUnreadDigest(Long userId, String type, long bucketSeconds, int limit);
+
+    Mono<Long> markReadByIds(Long userId, Long[] ids, LocalDateTime readAt);
+
+    Mono<Long> markReadUpTo(Long userId, LocalDateTime createdAt, Long id, LocalDateTime readAt);
+
+    Mono<Long> countUnreadByUserId(Long userId);
+}
@@ -0,0 +1,44 @@
+package com.notification.common;
+
+/**
+ * Известные типы уведомлений с заранее собранным префиксом заголовка.
+ */
+public enum NotificationType {
+    SYSTEM,
+    USER,
+    SOCIAL;
+
+    private final String titlePrefix = "[" + name() + "] ";
+
+    public String titlePrefix() {
+        return titlePrefix;
+    }
+
+    /**
+     * Заголовок с префиксом типа; уже префиксованный возвращается как есть.
+     */
+    public String prefixed(String title) {
+        return title == null || title.startsWith(titlePrefix) ? title : titlePrefix + title;
+    }
+
+    public static NotificationType of(String value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (value) {
+            case "SYSTEM" -> SYSTEM;
+            case "USER" -> USER;
+            case "SOCIAL" -> SOCIAL;
+            default -> null;
+        };
+    }
+
+    /**
+     * Для известного типа - общая константа вместо строки, прочитанной из БД или запроса,
+     * чтобы кэши и очереди не держали тысячи одинаковых копий.
+     */
+    public static String canonical(String value) {
+        NotificationType type = of(value);
+        return type != null ? type.name() : value;
+    }
+}
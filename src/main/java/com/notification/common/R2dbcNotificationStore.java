@@ -0,0 +1,62 @@
+package com.notification.common;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Backend по умолчанию: запросы {@link NotificationRepository} через пул R2DBC.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.service-b.repository-backend", havingValue = "r2dbc", matchIfMissing = true)
+public class R2dbcNotificationStore implements NotificationStore {
+
+    private final NotificationRepository notificationRepository;
+
+    @Override
+    public Flux<Notification> findUnreadFirstPage(Long userId, int limit) {
+        return notificationRepository.findUnreadFirstPage(userId, limit);
+    }
+
+    @Override
+    public Flux<Notification> findUnreadPageAfter(Long userId, LocalDateTime createdAt, Long id, int limit) {
+        return notificationRepository.findUnreadPageAfter(userId, createdAt, id, limit);
+    }
+
+    @Override
+    public Flux<Notification> findUnreadByTypeFirstPage(Long userId, String type, int limit) {
+        return notificationRepository.findUnreadByTypeFirstPage(userId, type, limit);
+    }
+
+    @Override
+    public Flux<Notification> findUnreadByTypePageAfter(Long userId, String type, LocalDateTime createdAt, Long id, int limit) {
+        return notificationRepository.findUnreadByTypePageAfter(userId, type, createdAt, id, limit);
+    }
+
+    @Override
+    public Flux<NotificationDigest> findUnreadDigest(Long userId, String type, long bucketSeconds, int limit) {
+        return type == null
+                ? notificationRepository.findUnreadDigest(userId, bucketSeconds, limit)
+                : notificationRepository.findUnreadDigestByType(userId, type, bucketSeconds, limit);
+    }
+
+    @Override
+    public Mono<Long> markReadByIds(Long userId, Long[] ids, LocalDateTime readAt) {
+        return notificationRepository.markReadByIds(userId, ids, readAt);
+    }
+
+    @Override
+    public Mono<Long> markReadUpTo(Long userId, LocalDateTime createdAt, Long id, LocalDateTime readAt) {
+        return notificationRepository.markReadUpTo(userId, createdAt, id, readAt);
+    }
+
+    @Override
+    public Mono<Long> countUnreadByUserId(Long userId) {
+        return notificationRepository.countUnreadByUserId(userId);
+    }
+}
@@ -0,0 +1,95 @@
+package com.notification.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Smile-кодеки для внутреннего хопа Service A -> Service B ({@value #SMILE_STREAM_VALUE}).
+ * Весь ответ пишется одним генератором, поэтому имена полей и повторяющиеся строки (type, source)
+ * после первого элемента уходят ссылками; даты - epoch millis (LocalDateTime в UTC) вместо строк.
+ * Внешние клиенты по-прежнему получают NDJSON.
+ *
+ * <p>Дефолтные codecs WebFlux уже содержат Smile-кодеки (jackson-dataformat-smile в classpath), но
+ * со своим mapper: без shared-ссылок на строки и с датами строками. Серверные codecs эти бины не меняют:
+ * энкодер нужен только для внедрения в NotificationStreamController, который кодирует поток сам,
+ * декодер заменяет дефолтный Smile-декодер в WebClient Service A.
+ */
+@Configuration
+public class SmileCodecConfig {
+
+    public static final String SMILE_STREAM_VALUE = "application/stream+x-jackson-smile";
+    public static final MediaType SMILE_STREAM = MediaType.parseMediaType(SMILE_STREAM_VALUE);
+
+    // Конструкторы с ObjectMapper без явных типов откатываются на JSON-типы
+    private static final MimeType[] SMILE_MIME_TYPES = {
+            new MimeType("application", "x-jackson-smile"),
+            new MimeType("application", "*+x-jackson-smile")
+    };
+
+    @Bean
+    public Jackson2SmileEncoder notificationSmileEncoder() {
+        return new Jackson2SmileEncoder(smileObjectMapper(), SMILE_MIME_TYPES);
+    }
+
+    @Bean
+    public Jackson2SmileDecoder notificationSmileDecoder() {
+        return new Jackson2SmileDecoder(smileObjectMapper(), SMILE_MIME_TYPES);
+    }
+
+    public static ObjectMapper smileObjectMapper() {
+        SmileFactory factory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return Jackson2ObjectMapperBuilder.smile()
+                .factory(factory)
+                // Только в этом mapper: JSON-ответы сохраняют "yyyy-MM-dd HH:mm:ss"
+                .serializerByType(LocalDateTime.class, new EpochMillisSerializer())
+                .deserializerByType(LocalDateTime.class, new EpochMillisDeserializer())
+                .build();
+    }
+
+    static class EpochMillisSerializer extends StdScalarSerializer<LocalDateTime> {
+
+        EpochMillisSerializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeNumber(value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    static class EpochMillisDeserializer extends StdScalarDeserializer<LocalDateTime> {
+
+        EpochMillisDeserializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getLongValue()), ZoneOffset.UTC);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.notification.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Метрики NDJSON-стримов: время до первого элемента, общая длительность, число элементов
+ * и исходы (complete/cancel/error/timeout) с тегами endpoint и filter.
+ */
+@Component
+@RequiredArgsConstructor
+public class StreamMetrics {
+
+    private static final String NO_FILTER = "none";
+    private static final String OTHER_FILTER = "other";
+
+    private final MeterRegistry meterRegistry;
+
+    public <T> Flux<T> instrument(Flux<T> stream, String endpoint, String filter) {
+        String filterTag = filterTag(filter);
+
+        return Flux.defer(() -> {
+            long startNanos = System.nanoTime();
+            long[] items = new long[1];
+
+            return stream
+                    .doOnNext(item -> {
+                        if (items[0]++ == 0) {
+                            firstItemTimer(endpoint, filterTag).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                        }
+                    })
+                    .doOnError(error -> outcome(endpoint, filterTag,
+                            error instanceof TimeoutException ? "timeout" : "error").increment())
+                    .doFinally(signal -> {
+                        durationTimer(endpoint, filterTag).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                        itemsSummary(endpoint, filterTag).record(items[0]);
+                        if (signal == SignalType.ON_COMPLETE || signal == SignalType.CANCEL) {
+                            outcome(endpoint, filterTag, signal == SignalType.CANCEL ? "cancel" : "complete").increment();
+                        }
+                    });
+        });
+    }
+
+    private Timer firstItemTimer(String endpoint, String filter) {
+        return Timer.builder("notification.stream.first-item")
+                .description("Time from subscription to the first emitted item")
+                .tags("endpoint", endpoint, "filter", filter)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Timer durationTimer(String endpoint, String filter) {
+        return Timer.builder("notification.stream.duration")
+                .description("Time from subscription to stream termination")
+                .tags("endpoint", endpoint, "filter", filter)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary itemsSummary(String endpoint, String filter) {
+        return DistributionSummary.builder("notification.stream.items")
+                .description("Items emitted per stream")
+                .tags("endpoint", endpoint, "filter", filter)
+                .register(meterRegistry);
+    }
+
+    private Counter outcome(String endpoint, String filter, String outcome) {
+        return Counter.builder("notification.stream.outcome")
+                .tags("endpoint", endpoint, "filter", filter, "outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // Фиксированный набор значений тега, чтобы произвольный filter не раздувал кардинальность
+    private String filterTag(String filter) {
+        if (filter == null || filter.isEmpty()) {
+            return NO_FILTER;
+        }
+        return switch (filter.toUpperCase(Locale.ROOT)) {
+            case "SYSTEM", "USER", "SOCIAL" -> filter.toUpperCase(Locale.ROOT);
+            default -> OTHER_FILTER;
+        };
+    }
+}
@@ -0,0 +1,113 @@
+package com.notification.servicea;
+
+import com.notification.common.ConcurrencyLimitExceededException;
+import com.notification.common.ErrorResponse;
+import com.notification.common.NotificationDto;
+import com.notification.common.SmileCodecConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.service-a.transport", havingValue = "http", matchIfMissing = true)
+public class HttpNotificationStreamClient implements NotificationStreamClient {
+
+    private final WebClient webClient;
+
+    @Value("${app.service-a.service-b-url:http://localhost:8080}")
+    private String serviceBUrl;
+
+    // smile - бинарный поток для декодируемого пути; passthrough всегда NDJSON (байты уходят клиенту как есть)
+    @Value("${app.service-a.wire-format:smile}")
+    private String wireFormat;
+
+    @Override
+    public Flux<NotificationDto> stream(Long userId, Integer limit, String filter, String cursor) {
+        MediaType accept = "smile".equalsIgnoreCase(wireFormat)
+                ? SmileCodecConfig.SMILE_STREAM
+                : MediaType.APPLICATION_NDJSON;
+        return retrieve(userId, limit, filter, cursor, accept).bodyToFlux(NotificationDto.class);
+    }
+
+    @Override
+    public Flux<DataBuffer> streamRaw(Long userId, Integer limit, String filter, String cursor,
+                                      DataBufferFactory bufferFactory) {
+        // Байты Service B уходят клиенту как есть, только выровненные по границам строк
+        return NdjsonLineSplitter.split(retrieve(userId, limit, filter, cursor, MediaType.APPLICATION_NDJSON)
+                .bodyToFlux(DataBuffer.class));
+    }
+
+    private WebClient.ResponseSpec retrieve(Long userId, Integer limit, String filter, String cursor,
+                                            MediaType accept) {
+        log.info("Sending WebClient request to Service B for userId: {}", userId);
+
+        String url = buildServiceBUrl(userId, limit, filter, cursor);
+        log.debug("Target URL: {}", url);
+
+        return webClient.get()
+                .uri(url)
+                .accept(accept)
+                .retrieve()
+                // 429 от Service B пробрасывается вызывающему как 429 с тем же Retry-After, а не 500
+                .onStatus(status -> status.value() == HttpStatus.TOO_MANY_REQUESTS.value(), response ->
+                        response.releaseBody().then(Mono.error(new ConcurrencyLimitExceededException(
+                                "Service B is overloaded", retryAfter(response.headers().asHttpHeaders())))))
+                .onStatus(status -> !status.is2xxSuccessful(), response ->
+                        // Тело ошибки согласуется по тому же Accept и может прийти в Smile
+                        response.bodyToMono(ErrorResponse.class)
+                                .map(ErrorResponse::getMessage)
+                                .onErrorResume(e -> Mono.empty())
+                                .defaultIfEmpty(response.statusCode().toString())
+                                .flatMap(body -> {
+                                    log.error("Service B returned error: {}", body);
+                                    return Mono.error(new RuntimeException("Service B error: " + body));
+                                })
+                );
+    }
+
+    private static Duration retryAfter(HttpHeaders headers) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        try {
+            return Duration.ofSeconds(value != null ? Long.parseLong(value.trim()) : 1);
+        } catch (NumberFormatException e) {
+            // HTTP-date форма Retry-After от Service B не приходит
+            return Duration.ofSeconds(1);
+        }
+    }
+
+    private String buildServiceBUrl(Long userId, Integer limit, String filter, String cursor) {
+        // ОПТИМИЗАЦИЯ: Избегаем String конкатенации перед StringBuilder
+        StringBuilder url = new StringBuilder(serviceBUrl)
+                .append("/api/notifications/stream?userId=")
+                .append(userId);
+
+        if (limit != null) {
+            url.append("&limit=").append(limit);
+        }
+
+        if (filter != null && !filter.isEmpty()) {
+            url.append("&filter=").append(filter);
+        }
+
+        // base64url-токен не требует URL-кодирования
+        if (cursor != null && !cursor.isEmpty()) {
+            url.append("&cursor=").append(cursor);
+        }
+
+        return url.toString();
+    }
+}
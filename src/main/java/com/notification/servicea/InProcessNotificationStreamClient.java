@@ -0,0 +1,38 @@
+package com.notification.servicea;
+
+import com.notification.common.NdjsonNotificationEncoder;
+import com.notification.common.NotificationDto;
+import com.notification.serviceb.NotificationStreamBuilder;
+import com.notification.serviceb.RecentFeedCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * Оба сервиса в одной JVM: вызываем NotificationStreamBuilder напрямую,
+ * без loopback HTTP и без NDJSON сериализации/десериализации.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.service-a.transport", havingValue = "in-process")
+public class InProcessNotificationStreamClient implements NotificationStreamClient {
+
+    private final NotificationStreamBuilder streamBuilder;
+    private final NdjsonNotificationEncoder encoder;
+    private final RecentFeedCache recentFeedCache;
+
+    @Override
+    public Flux<NotificationDto> stream(Long userId, Integer limit, String filter, String cursor) {
+        return streamBuilder.buildNotificationStream(userId, limit, filter, cursor);
+    }
+
+    @Override
+    public Flux<DataBuffer> streamRaw(Long userId, Integer limit, String filter, String cursor,
+                                      DataBufferFactory bufferFactory) {
+        return recentFeedCache.stream(userId, limit, filter, cursor, bufferFactory,
+                () -> encoder.encode(stream(userId, limit, filter, cursor), bufferFactory));
+    }
+}
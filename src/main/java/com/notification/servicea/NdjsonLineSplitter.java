@@ -0,0 +1,59 @@
+package com.notification.servicea;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Перенарезает поток байтовых чанков так, чтобы каждый выходной буфер заканчивался на '\n'.
+ * Байты не копируются: хвосты отрезаются через split(), склейка - через factory().join().
+ */
+final class NdjsonLineSplitter {
+
+    private static final byte NEWLINE = '\n';
+
+    private NdjsonLineSplitter() {
+    }
+
+    static Flux<DataBuffer> split(Flux<DataBuffer> chunks) {
+        return Flux.defer(() -> {
+            List<DataBuffer> pending = new ArrayList<>();
+
+            return chunks
+                    .concatMap(chunk -> {
+                        int last = chunk.readableByteCount() == 0 ? -1
+                                : chunk.lastIndexOf(b -> b == NEWLINE, chunk.writePosition() - 1);
+                        if (last < chunk.readPosition()) {
+                            pending.add(chunk);
+                            return Mono.empty();
+                        }
+
+                        pending.add(chunk.split(last + 1));
+                        DataBuffer lines = join(pending);
+                        if (chunk.readableByteCount() > 0) {
+                            pending.add(chunk);
+                        } else {
+                            DataBufferUtils.release(chunk);
+                        }
+                        return Mono.just(lines);
+                    })
+                    // Последняя строка без перевода строки
+                    .concatWith(Mono.defer(() -> pending.isEmpty() ? Mono.empty() : Mono.just(join(pending))))
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .doFinally(signal -> {
+                        pending.forEach(DataBufferUtils::release);
+                        pending.clear();
+                    });
+        });
+    }
+
+    private static DataBuffer join(List<DataBuffer> buffers) {
+        DataBuffer joined = buffers.size() == 1 ? buffers.get(0) : buffers.get(0).factory().join(buffers);
+        buffers.clear();
+        return joined;
+    }
+}
@@ -1,12 +1,17 @@
 package com.notification.servicea;
 
+import com.notification.common.ConcurrencyLimiters;
+import com.notification.common.NdjsonNotificationEncoder;
 import com.notification.common.NotificationDto;
+import com.notification.common.StreamMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -18,16 +23,26 @@ import java.time.Duration;
 @RequiredArgsConstructor
 public class NotificationClientController {
 
-    private final WebClient webClient;
+    private final NotificationStreamClient streamClient;
+    private final RequestCoalescer requestCoalescer;
+    private final StreamMetrics streamMetrics;
+    private final NdjsonNotificationEncoder encoder;
+    private final ConcurrencyLimiters concurrencyLimiters;
 
     @Value("${app.service-a.client-timeout:20000}")
     private long clientTimeout;
 
+    // passthrough: байты Service B ретранслируются без декодирования в NotificationDto
+    @Value("${app.service-a.passthrough:false}")
+    private boolean passthrough;
+
     @GetMapping(value = "/notifications", produces = MediaType.APPLICATION_NDJSON_VALUE)
-    public Flux<NotificationDto> getNotifications(
+    public Flux<DataBuffer> getNotifications(
             @RequestParam Long userId,
             @RequestParam(required = false) Integer limit,
-            @RequestParam(required = false) String filter) {
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String cursor,
+            ServerWebExchange exchange) {
 
         log.info("Client received request - userId: {}, limit: {}, filter: {}", userId, limit, filter);
 
@@ -41,32 +56,25 @@ public class NotificationClientController {
             return Flux.error(new IllegalArgumentException("limit must be positive"));
         }
 
-        return requestNotificationStream(userId, limit, filter);
-    }
+        DataBufferFactory bufferFactory = exchange.getResponse().bufferFactory();
 
-    private Flux<NotificationDto> requestNotificationStream(Long userId, Integer limit, String filter) {
-        log.info("Sending WebClient request to Service B for userId: {}", userId);
+        // В passthrough метрика items считает чанки из целых строк, а не отдельные уведомления.
+        // Лимитер снаружи timeout, чтобы срабатывание таймаута сжимало лимит. Разрешение берет только
+        // ведущий запрос, который реально идет в Service B: присоединившиеся к нему через coalescer
+        // соединений не занимают и не должны получать 429 по лимиту на userId
+        Flux<DataBuffer> body = passthrough
+                ? concurrencyLimiters.limit("client", userId, () -> withClientTimeout(
+                        streamClient.streamRaw(userId, limit, filter, cursor, bufferFactory), userId))
+                : encoder.encode(requestCoalescer.coalesce(userId, limit, filter, cursor,
+                        () -> concurrencyLimiters.limit("client", userId, () -> withClientTimeout(
+                                streamClient.stream(userId, limit, filter, cursor), userId))), bufferFactory);
 
-        String url = buildServiceBUrl(userId, limit, filter);
-        log.debug("Target URL: {}", url);
+        return streamMetrics.instrument(body, "client", filter);
+    }
 
-        return webClient.get()
-                .uri(url)
-                .accept(MediaType.APPLICATION_NDJSON)
-                .retrieve()
-                .onStatus(status -> !status.is2xxSuccessful(), response ->
-                        response.bodyToMono(String.class)
-                                .flatMap(body -> {
-                                    log.error("Service B returned error: {}", body);
-                                    return Mono.error(new RuntimeException("Service B error: " + body));
-                                })
-                )
-                .bodyToFlux(NotificationDto.class)
+    private <T> Flux<T> withClientTimeout(Flux<T> stream, Long userId) {
+        return stream
                 .timeout(Duration.ofMillis(clientTimeout))
-                .doOnNext(notification -> {
-                    log.debug("Received notification from Service B - id: {}, type: {}, title: {}",
-                            notification.getId(), notification.getType(), notification.getTitle());
-                })
                 .doOnError(error -> {
                     if (error instanceof IllegalStateException && error.getMessage().contains("timeout")) {
                         log.error("Timeout occurred while streaming notifications ({}ms) for userId: {}",
@@ -83,22 +91,6 @@ public class NotificationClientController {
                 });
     }
 
-    private String buildServiceBUrl(Long userId, Integer limit, String filter) {
-        // ОПТИМИЗАЦИЯ: Избегаем String конкатенации перед StringBuilder
-        StringBuilder url = new StringBuilder("http://localhost:8080/api/notifications/stream?userId=")
-                .append(userId);
-
-        if (limit != null) {
-            url.append("&limit=").append(limit);
-        }
-
-        if (filter != null && !filter.isEmpty()) {
-            url.append("&filter=").append(filter);
-        }
-
-        return url.toString();
-    }
-
     @GetMapping("/health")
     public Mono<String> health() {
         return Mono.just("Service A is healthy");
@@ -0,0 +1,21 @@
+package com.notification.servicea;
+
+import com.notification.common.NotificationDto;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import reactor.core.publisher.Flux;
+
+/**
+ * Транспорт Service A -> Service B.
+ * Выбирается свойством app.service-a.transport: in-process или http.
+ */
+public interface NotificationStreamClient {
+
+    Flux<NotificationDto> stream(Long userId, Integer limit, String filter, String cursor);
+
+    /**
+     * Готовые NDJSON-байты без промежуточных NotificationDto (passthrough-режим Service A).
+     */
+    Flux<DataBuffer> streamRaw(Long userId, Integer limit, String filter, String cursor,
+                               DataBufferFactory bufferFactory);
+}
@@ -0,0 +1,113 @@
+package com.notification.servicea;
+
+import com.notification.common.NotificationDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight для одинаковых (userId, limit, filter, cursor): одновременные запросы делят один upstream,
+ * а пришедшие в течение окна после завершения получают закэшированный результат.
+ * Коалесцируются только запросы с limit не больше max-limit - replay держит весь ответ в памяти.
+ */
+@Slf4j
+@Component
+public class RequestCoalescer {
+
+    private final Map<StreamKey, Flux<NotificationDto>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaderRequests;
+    private final Counter joinedRequests;
+    private final Counter bypassedRequests;
+
+    @Value("${app.service-a.coalescing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.service-a.coalescing.window-ms:200}")
+    private long windowMs;
+
+    @Value("${app.service-a.coalescing.max-limit:1000}")
+    private int maxLimit;
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.leaderRequests = Counter.builder("client.coalescing.requests")
+                .tag("result", "leader")
+                .register(meterRegistry);
+        this.joinedRequests = Counter.builder("client.coalescing.requests")
+                .tag("result", "joined")
+                .register(meterRegistry);
+        this.bypassedRequests = Counter.builder("client.coalescing.requests")
+                .tag("result", "bypassed")
+                .register(meterRegistry);
+        Gauge.builder("client.coalescing.in-flight", inFlight, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("client.coalescing.ratio", this, RequestCoalescer::coalescingRatio)
+                .description("Share of coalescable requests served by an already running upstream call")
+                .register(meterRegistry);
+    }
+
+    public Flux<NotificationDto> coalesce(Long userId, Integer limit, String filter, String cursor,
+                                          Supplier<Flux<NotificationDto>> upstream) {
+        if (!enabled || limit == null || limit > maxLimit) {
+            bypassedRequests.increment();
+            return upstream.get();
+        }
+
+        return Flux.defer(() -> {
+            StreamKey key = new StreamKey(userId, limit, filter == null ? "" : filter, cursor == null ? "" : cursor);
+            boolean[] leader = new boolean[1];
+
+            Flux<NotificationDto> shared = inFlight.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                return share(k, upstream.get());
+            });
+
+            if (leader[0]) {
+                leaderRequests.increment();
+            } else {
+                joinedRequests.increment();
+                log.debug("Coalesced request for userId: {}, limit: {}, filter: {}", userId, limit, filter);
+            }
+            return shared;
+        });
+    }
+
+    private Flux<NotificationDto> share(StreamKey key, Flux<NotificationDto> upstream) {
+        AtomicReference<Flux<NotificationDto>> self = new AtomicReference<>();
+        // cache(): один upstream на всех подписчиков, поздние получают replay
+        self.set(upstream
+                .doFinally(signal -> release(key, self.get(), signal))
+                .cache());
+        return self.get();
+    }
+
+    private void release(StreamKey key, Flux<NotificationDto> shared, SignalType signal) {
+        if (signal == SignalType.ON_COMPLETE && windowMs > 0) {
+            Mono.delay(Duration.ofMillis(windowMs))
+                    .subscribe(tick -> inFlight.remove(key, shared));
+        } else {
+            // Ошибку не раздаем опоздавшим - следующий запрос пойдет заново
+            inFlight.remove(key, shared);
+        }
+    }
+
+    private double coalescingRatio() {
+        double leaders = leaderRequests.count();
+        double joined = joinedRequests.count();
+        return leaders + joined == 0 ? 0 : joined / (leaders + joined);
+    }
+
+    private record StreamKey(Long userId, Integer limit, String filter, String cursor) {
+    }
+}
@@ -8,9 +8,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.resources.ConnectionProvider;
 
@@ -23,14 +25,28 @@ public class WebClientConfig {
     @Value("${app.service-a.client-timeout:20000}")
     private long clientTimeout;
 
+    // h2c: запросы мультиплексируются поверх нескольких соединений вместо пула на 100 HTTP/1.1
+    @Value("${app.service-a.http2.enabled:true}")
+    private boolean http2Enabled;
+
+    @Value("${app.service-a.http2.max-connections:4}")
+    private int http2MaxConnections;
+
+    @Value("${app.service-a.http2.max-concurrent-streams:1000}")
+    private long http2MaxConcurrentStreams;
+
     @Bean
-    public WebClient webClient() {
+    public WebClient webClient(Jackson2SmileDecoder notificationSmileDecoder) {
         ConnectionProvider provider = ConnectionProvider.builder("http-pool")
-                .maxConnections(100)
+                .maxConnections(http2Enabled ? http2MaxConnections : 100)
                 .maxIdleTime(java.time.Duration.ofMinutes(30))
+                // reactor.netty.connection.provider.* gauges
+                .metrics(true)
                 .build();
 
         HttpClient httpClient = HttpClient.create(provider)
+                .protocol(http2Enabled ? HttpProtocol.H2C : HttpProtocol.HTTP11)
+                .http2Settings(settings -> settings.maxConcurrentStreams(http2MaxConcurrentStreams))
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10000)
                 .option(ChannelOption.SO_KEEPALIVE, true)
                 .responseTimeout(java.time.Duration.ofMillis(clientTimeout))
@@ -41,6 +57,8 @@ public class WebClientConfig {
 
         return WebClient.builder()
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // Вместо дефолтного Smile-декодера Spring: даты в потоке Service B - epoch millis
+                .codecs(configurer -> configurer.defaultCodecs().jackson2SmileDecoder(notificationSmileDecoder))
                 .filter(logRequest())
                 .filter(logResponse())
                 .build();
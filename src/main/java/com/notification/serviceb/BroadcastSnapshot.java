@@ -0,0 +1,267 @@
+package com.notification.serviceb;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.common.Notification;
+import com.notification.common.StreamCursor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * In-memory снимок актуальных широковещательных уведомлений (newest first) и кэш read-watermark
+ * пользователей. Снимок перечитывается по событию broadcast_events (LISTEN/NOTIFY), после публикации
+ * на этом узле и по таймеру как страховка; при изменении публикуется {@link BroadcastsChangedEvent}.
+ * Сдвиг watermark на любом узле приходит в тот же канал (V7) и сбрасывает watermark пользователя.
+ * Только для stream-source: repository - синтетический источник рассылки не подмешивает.
+ */
+@Slf4j
+@Component
+public class BroadcastSnapshot {
+
+    private static final String SOURCE_REPOSITORY = "repository";
+    private static final String WATERMARK_EVENT = "WATERMARK:";
+
+    private static final Comparator<StreamCursor> POSITION = Comparator
+            .comparing(StreamCursor::createdAt)
+            .thenComparing(StreamCursor::id);
+
+    // Пользователь еще ничего не читал из рассылок
+    private static final StreamCursor NONE = new StreamCursor(LocalDateTime.MIN, Long.MIN_VALUE);
+
+    private final BroadcastStore broadcastStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache<Long, StreamCursor> watermarks;
+
+    @Value("${app.service-b.broadcast.snapshot-size:1000}")
+    private int snapshotSize;
+
+    @Value("${app.service-b.broadcast.max-age:30d}")
+    private Duration maxAge;
+
+    @Value("${app.service-b.broadcast.refresh-interval:1m}")
+    private Duration refreshInterval;
+
+    // Рассылки подмешиваются только в ленту из БД: с синтетическим источником таблицы не читаются
+    @Value("${app.service-b.stream-source:synthetic}")
+    private String streamSource;
+
+    private volatile List<Notification> broadcasts = List.of();
+    private Disposable subscription;
+
+    public BroadcastSnapshot(BroadcastStore broadcastStore,
+                             ApplicationEventPublisher eventPublisher,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.service-b.broadcast.watermark-cache.max-size:100000}") long maxSize,
+                             @Value("${app.service-b.broadcast.watermark-cache.ttl:1m}") Duration ttl) {
+        this.broadcastStore = broadcastStore;
+        this.eventPublisher = eventPublisher;
+        this.watermarks = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        Gauge.builder("broadcast.snapshot.size", this, snapshot -> snapshot.broadcasts.size())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!isEnabled()) {
+            log.info("Broadcast snapshot refresh is disabled for stream source {}", streamSource);
+            return;
+        }
+        subscription = Flux.interval(Duration.ZERO, refreshInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh()
+                        .onErrorResume(e -> {
+                            log.warn("Broadcast snapshot refresh failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    public Mono<Void> refresh() {
+        if (!isEnabled()) {
+            return Mono.empty();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return broadcastStore.findActive(now.minus(maxAge), now, snapshotSize)
+                .collectList()
+                .doOnNext(loaded -> {
+                    List<Notification> previous = broadcasts;
+                    broadcasts = List.copyOf(loaded);
+                    if (!sameIds(previous, loaded)) {
+                        log.info("Broadcast snapshot changed: {} active broadcasts", loaded.size());
+                        eventPublisher.publishEvent(new BroadcastsChangedEvent());
+                    }
+                })
+                .then();
+    }
+
+    /**
+     * Событие канала broadcast_events: сдвиг watermark сбрасывает только этого пользователя,
+     * остальные события (TG_OP изменения рассылок) перечитывают снимок.
+     */
+    public Mono<Void> onEvent(String payload) {
+        if (payload == null || !payload.startsWith(WATERMARK_EVENT)) {
+            return refresh();
+        }
+        try {
+            watermarks.invalidate(Long.valueOf(payload.substring(WATERMARK_EVENT.length())));
+        } catch (NumberFormatException e) {
+            log.warn("Skipping malformed watermark event: {}", payload);
+        }
+        return Mono.empty();
+    }
+
+    public boolean isEmpty() {
+        return broadcasts.isEmpty();
+    }
+
+    /**
+     * Непрочитанные пользователем рассылки строго до {@code after} (если задан), newest first,
+     * в виде строк ленты этого пользователя.
+     */
+    public Mono<List<Notification>> unreadFor(Long userId, String type, StreamCursor after) {
+        List<Notification> snapshot = broadcasts;
+        if (snapshot.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return watermark(userId).map(watermark -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Notification> unread = new ArrayList<>();
+            for (Notification broadcast : snapshot) {
+                StreamCursor position = StreamCursor.of(broadcast);
+                // Снимок отсортирован newest first: все дальнейшие уже прочитаны
+                if (POSITION.compare(position, watermark) <= 0) {
+                    break;
+                }
+                if (after != null && POSITION.compare(position, after) >= 0) {
+                    continue;
+                }
+                if (type == null || type.equalsIgnoreCase(broadcast.getType())) {
+                    unread.add(forUser(broadcast, userId));
+                }
+            }
+            return unread;
+        });
+    }
+
+    public Mono<Long> countUnread(Long userId) {
+        return unreadFor(userId, null, null).map(unread -> (long) unread.size());
+    }
+
+    /**
+     * Все рассылки до {@code upTo} включительно считаются прочитанными. Возвращает число
+     * рассылок из снимка, ставших прочитанными.
+     */
+    public Mono<Long> markReadUpTo(Long userId, StreamCursor upTo) {
+        return watermark(userId).flatMap(current -> {
+            if (POSITION.compare(upTo, current) <= 0) {
+                return Mono.just(0L);
+            }
+            long newlyRead = broadcasts.stream()
+                    .map(StreamCursor::of)
+                    .filter(position -> POSITION.compare(position, current) > 0 && POSITION.compare(position, upTo) <= 0)
+                    .count();
+            return broadcastStore.advanceWatermark(userId, upTo)
+                    .doOnNext(changed -> watermarks.invalidate(userId))
+                    .thenReturn(newlyRead);
+        });
+    }
+
+    /**
+     * Отметка по ids: хранится только watermark, поэтому он сдвигается до самой свежей из указанных
+     * рассылок (более старые непрочитанные рассылки тоже становятся прочитанными).
+     */
+    public Mono<Long> markReadIds(Long userId, Collection<Long> ids) {
+        return broadcasts.stream()
+                .filter(broadcast -> ids.contains(broadcast.getId()))
+                .map(StreamCursor::of)
+                .max(POSITION)
+                .map(upTo -> markReadUpTo(userId, upTo))
+                .orElseGet(() -> Mono.just(0L));
+    }
+
+    public Mono<Notification> publish(String type, String title, String message, String source,
+                                      LocalDateTime expiresAt) {
+        LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        return broadcastStore.insert(type, title, message, source, createdAt, expiresAt)
+                .flatMap(id -> refresh().thenReturn(Notification.builder()
+                        .id(id)
+                        .type(type)
+                        .title(title)
+                        .message(message)
+                        .source(source)
+                        .createdAt(createdAt)
+                        .build()));
+    }
+
+    private boolean isEnabled() {
+        return SOURCE_REPOSITORY.equalsIgnoreCase(streamSource);
+    }
+
+    private Mono<StreamCursor> watermark(Long userId) {
+        StreamCursor cached = watermarks.getIfPresent(userId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return broadcastStore.findWatermark(userId)
+                .defaultIfEmpty(NONE)
+                .doOnNext(watermark -> watermarks.put(userId, watermark));
+    }
+
+    private static Notification forUser(Notification broadcast, Long userId) {
+        return Notification.builder()
+                .id(broadcast.getId())
+                .userId(userId)
+                .type(broadcast.getType())
+                .title(broadcast.getTitle())
+                .message(broadcast.getMessage())
+                .source(broadcast.getSource())
+                .createdAt(broadcast.getCreatedAt())
+                .build();
+    }
+
+    private static boolean sameIds(List<Notification> left, List<Notification> right) {
+        if (left.size() != right.size()) {
+            return false;
+        }
+        for (int i = 0; i < left.size(); i++) {
+            if (!left.get(i).getId().equals(right.get(i).getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Набор активных рассылок изменился: закэшированные ленты пользователей устарели.
+     */
+    public record BroadcastsChangedEvent() {
+    }
+}
@@ -0,0 +1,91 @@
+package com.notification.serviceb;
+
+import com.notification.common.Notification;
+import com.notification.common.StreamCursor;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Доступ к broadcast_notifications и broadcast_read_watermarks (миграция V4).
+ */
+@Component
+@RequiredArgsConstructor
+public class BroadcastStore {
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<Notification> findActive(LocalDateTime since, LocalDateTime now, int limit) {
+        return databaseClient.sql("SELECT id, type, title, message, source, created_at FROM broadcast_notifications " +
+                        "WHERE created_at >= :since AND (expires_at IS NULL OR expires_at > :now) " +
+                        "ORDER BY created_at DESC, id DESC LIMIT :limit")
+                .bind("since", since)
+                .bind("now", now)
+                .bind("limit", limit)
+                .map(BroadcastStore::toNotification)
+                .all();
+    }
+
+    public Mono<Long> insert(String type, String title, String message, String source,
+                             LocalDateTime createdAt, LocalDateTime expiresAt) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(
+                        "INSERT INTO broadcast_notifications (type, title, message, source, created_at, expires_at) " +
+                                "VALUES (:type, :title, :message, :source, :createdAt, :expiresAt)")
+                .bind("type", type)
+                .bind("title", title)
+                .bind("createdAt", createdAt);
+        spec = message != null ? spec.bind("message", message) : spec.bindNull("message", String.class);
+        spec = source != null ? spec.bind("source", source) : spec.bindNull("source", String.class);
+        spec = expiresAt != null ? spec.bind("expiresAt", expiresAt) : spec.bindNull("expiresAt", LocalDateTime.class);
+
+        return spec.filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one();
+    }
+
+    public Mono<StreamCursor> findWatermark(Long userId) {
+        return databaseClient.sql("SELECT read_up_to_created_at, read_up_to_id FROM broadcast_read_watermarks " +
+                        "WHERE user_id = :userId")
+                .bind("userId", userId)
+                .map(row -> new StreamCursor(row.get("read_up_to_created_at", LocalDateTime.class),
+                        row.get("read_up_to_id", Long.class)))
+                .one();
+    }
+
+    /**
+     * Сдвигает watermark только вперед одним upsert: конкурентные первые отметки не теряют
+     * более свежую позицию. Возвращает true, если он изменился.
+     */
+    public Mono<Boolean> advanceWatermark(Long userId, StreamCursor upTo) {
+        return databaseClient.sql("INSERT INTO broadcast_read_watermarks " +
+                        "(user_id, read_up_to_created_at, read_up_to_id, updated_at) " +
+                        "VALUES (:userId, :createdAt, :id, :now) " +
+                        "ON CONFLICT (user_id) DO UPDATE SET read_up_to_created_at = excluded.read_up_to_created_at, " +
+                        "read_up_to_id = excluded.read_up_to_id, updated_at = excluded.updated_at " +
+                        "WHERE (excluded.read_up_to_created_at, excluded.read_up_to_id) > " +
+                        "(broadcast_read_watermarks.read_up_to_created_at, broadcast_read_watermarks.read_up_to_id)")
+                .bind("userId", userId)
+                .bind("createdAt", upTo.createdAt())
+                .bind("id", upTo.id())
+                .bind("now", LocalDateTime.now())
+                .fetch()
+                .rowsUpdated()
+                .map(changed -> changed > 0);
+    }
+
+    private static Notification toNotification(Readable row) {
+        return Notification.builder()
+                .id(row.get("id", Long.class))
+                .type(row.get("type", String.class))
+                .title(row.get("title", String.class))
+                .message(row.get("message", String.class))
+                .source(row.get("source", String.class))
+                .createdAt(row.get("created_at", LocalDateTime.class))
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.notification.serviceb;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Недавние dedup-ключи (LRU с ограничением размера и TTL) перед таблицей notification_dedup_keys:
+ * очевидные повторы продюсера отсекаются без похода в Postgres. Окно - только оптимизация,
+ * гарантию дает ON CONFLICT DO NOTHING в БД.
+ */
+@Component
+public class DedupWindow {
+
+    private final boolean enabled;
+    private final Cache<Key, Boolean> recentKeys;
+    private final Counter keyed;
+    private final Counter suppressedInMemory;
+    private final Counter suppressedInDatabase;
+
+    public DedupWindow(MeterRegistry meterRegistry,
+                       @Value("${app.service-b.dedup.window.enabled:true}") boolean enabled,
+                       @Value("${app.service-b.dedup.window.max-size:100000}") long maxSize,
+                       @Value("${app.service-b.dedup.window.ttl:10m}") Duration ttl) {
+        this.enabled = enabled;
+        this.recentKeys = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recentKeys, "dedup-window");
+        // Доля подавленных: (memory + database) / keyed
+        this.keyed = Counter.builder("notification.ingest.keyed").register(meterRegistry);
+        this.suppressedInMemory = suppressed(meterRegistry, "memory");
+        this.suppressedInDatabase = suppressed(meterRegistry, "database");
+    }
+
+    public boolean seen(Long userId, String dedupKey) {
+        keyed.increment();
+        if (enabled && recentKeys.getIfPresent(new Key(userId, dedupKey)) != null) {
+            suppressedInMemory.increment();
+            return true;
+        }
+        return false;
+    }
+
+    // Ключ попадает в окно только после успешной записи: иначе повтор упавшей пачки потерялся бы
+    public void remember(Long userId, String dedupKey) {
+        if (enabled) {
+            recentKeys.put(new Key(userId, dedupKey), Boolean.TRUE);
+        }
+    }
+
+    // Повтор ключа внутри одной пачки: seen() для него уже вызван
+    public void suppressedInBatch() {
+        suppressedInMemory.increment();
+    }
+
+    public void suppressedInDatabase(int count) {
+        suppressedInDatabase.increment(count);
+    }
+
+    private static Counter suppressed(MeterRegistry meterRegistry, String stage) {
+        return Counter.builder("notification.ingest.duplicates")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private record Key(Long userId, String dedupKey) {
+    }
+}
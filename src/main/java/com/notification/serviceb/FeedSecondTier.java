@@ -0,0 +1,18 @@
+package com.notification.serviceb;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Второй уровень {@link RecentFeedCache}: общее для узлов key-value хранилище сериализованных срезов.
+ * Узел с холодным L1 берет срез отсюда вместо запроса в БД.
+ */
+public interface FeedSecondTier {
+
+    Mono<byte[]> get(Long userId);
+
+    Mono<Void> put(Long userId, byte[] feed, Duration ttl);
+
+    Mono<Void> delete(Long userId);
+}
@@ -0,0 +1,65 @@
+package com.notification.serviceb;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Заглушка внешнего key-value хранилища (Redis/Memcached) в памяти процесса: значения хранятся
+ * только байтами с TTL, как их хранил бы настоящий KV, так что стоимость сериализации видна в профиле.
+ * Для общего между узлами кэша заменяется реализацией {@link FeedSecondTier} поверх реального клиента.
+ */
+@Component
+@ConditionalOnProperty(name = "app.service-b.recent-feed-cache.second-tier.enabled", havingValue = "true")
+public class LocalKeyValueFeedTier implements FeedSecondTier {
+
+    private final ConcurrentHashMap<Long, StoredValue> values = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    public LocalKeyValueFeedTier(MeterRegistry meterRegistry,
+                                 @Value("${app.service-b.recent-feed-cache.second-tier.max-entries:100000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        Gauge.builder("recent.feed.second-tier.size", values, ConcurrentHashMap::size)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<byte[]> get(Long userId) {
+        return Mono.fromSupplier(() -> {
+            StoredValue value = values.get(userId);
+            if (value == null) {
+                return null;
+            }
+            if (value.expiresAtNanos - System.nanoTime() < 0) {
+                values.remove(userId, value);
+                return null;
+            }
+            return value.bytes;
+        });
+    }
+
+    @Override
+    public Mono<Void> put(Long userId, byte[] feed, Duration ttl) {
+        return Mono.fromRunnable(() -> {
+            // Переполнение - как allkeys-random в Redis: выкидываем произвольный ключ
+            if (values.size() >= maxEntries && !values.containsKey(userId)) {
+                values.keySet().stream().findAny().ifPresent(values::remove);
+            }
+            values.put(userId, new StoredValue(feed, System.nanoTime() + ttl.toNanos()));
+        });
+    }
+
+    @Override
+    public Mono<Void> delete(Long userId) {
+        return Mono.fromRunnable(() -> values.remove(userId));
+    }
+
+    private record StoredValue(byte[] bytes, long expiresAtNanos) {
+    }
+}
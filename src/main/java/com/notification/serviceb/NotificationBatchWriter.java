@@ -0,0 +1,204 @@
+package com.notification.serviceb;
+
+import com.notification.common.BatchResult;
+import com.notification.common.Notification;
+import com.notification.common.NotificationDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Пишет пачку уведомлений одним multi-row INSERT (через CTE) вместо отдельного statement на строку.
+ * Пачка с dedup_key дополнительно занимает ключи ON CONFLICT DO NOTHING в notification_dedup_keys (V5).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationBatchWriter {
+
+    // id выдаются в v через nextval, ord - номер строки в пачке: результат сопоставляется по ord,
+    // а не по порядку строк RETURNING, который Postgres для multi-row INSERT не гарантирует
+    private static final String INSERT_PREFIX =
+            "WITH v AS (SELECT nextval('notifications_id_seq') AS id, t.* FROM (VALUES ";
+    private static final String INSERT_SUFFIX =
+            ") AS t (user_id, type, title, message, source, read, created_at, dedup_key, ord)), "
+            + "ins AS (INSERT INTO notifications (id, user_id, type, title, message, source, read, created_at, dedup_key) "
+            + "SELECT id, user_id, type, title, message, source, read, created_at, dedup_key FROM v) "
+            + "SELECT ord, id FROM v ORDER BY ord";
+    private static final String DEDUP_INSERT_SUFFIX =
+            ") AS t (user_id, type, title, message, source, read, created_at, dedup_key, ord)), "
+            + "claimed AS (INSERT INTO notification_dedup_keys (user_id, dedup_key) "
+            + "SELECT user_id, dedup_key FROM v WHERE dedup_key IS NOT NULL "
+            + "ON CONFLICT DO NOTHING RETURNING user_id, dedup_key), "
+            + "ins AS (INSERT INTO notifications (id, user_id, type, title, message, source, read, created_at, dedup_key) "
+            + "SELECT id, user_id, type, title, message, source, read, created_at, dedup_key FROM v "
+            + "WHERE dedup_key IS NULL OR (user_id, dedup_key) IN (SELECT user_id, dedup_key FROM claimed) "
+            + "RETURNING id) "
+            + "SELECT v.ord, v.id FROM v JOIN ins ON ins.id = v.id ORDER BY v.ord";
+    private static final int COLUMNS = 8;
+    private static final String[] CASTS =
+            {"bigint", "varchar", "varchar", "text", "varchar", "boolean", "timestamp", "varchar"};
+    private static final int MAX_DEDUP_KEY_LENGTH = 128;
+    // Клиенту - общая причина; текст исключения драйвера (SQL, имена таблиц и ограничений) только в лог
+    private static final String STORE_FAILED = "failed to store batch";
+
+    private final DatabaseClient databaseClient;
+    private final UnreadCountCache unreadCountCache;
+    private final RecentFeedCache recentFeedCache;
+    private final DedupWindow dedupWindow;
+
+    public Mono<BatchResult> write(long batchNumber, List<NotificationDto> batch) {
+        List<NotificationDto> valid = new ArrayList<>(batch.size());
+        for (NotificationDto notification : batch) {
+            if (isValid(notification)) {
+                valid.add(notification);
+            }
+        }
+        int rejected = batch.size() - valid.size();
+
+        // Повторы с dedup_key, уже виденные этим узлом или встреченные в этой же пачке, до БД не доходят
+        List<NotificationDto> fresh = new ArrayList<>(valid.size());
+        Set<Map.Entry<Long, String>> batchKeys = new HashSet<>();
+        int suppressed = 0;
+        for (NotificationDto notification : valid) {
+            if (notification.dedupKey() == null) {
+                fresh.add(notification);
+            } else if (dedupWindow.seen(notification.userId(), notification.dedupKey())) {
+                suppressed++;
+            } else if (!batchKeys.add(Map.entry(notification.userId(), notification.dedupKey()))) {
+                dedupWindow.suppressedInBatch();
+                suppressed++;
+            } else {
+                fresh.add(notification);
+            }
+        }
+        int duplicatesInMemory = suppressed;
+
+        if (fresh.isEmpty()) {
+            return Mono.just(result(batchNumber, 0, rejected, duplicatesInMemory, null));
+        }
+
+        return Mono.defer(() -> {
+                    // Версии счетчиков снимаются до INSERT: по ним onInserted видит, не учтены ли строки уже
+                    Map<Long, Long> countVersions = unreadCountCache.versionsOf(
+                            fresh.stream().map(NotificationDto::userId).toList());
+                    return insert(fresh, batchKeys.isEmpty() ? INSERT_SUFFIX : DEDUP_INSERT_SUFFIX)
+                            .flatMap(inserted -> {
+                                int duplicatesInDatabase = fresh.size() - inserted.size();
+                                if (duplicatesInDatabase > 0) {
+                                    dedupWindow.suppressedInDatabase(duplicatesInDatabase);
+                                }
+                                batchKeys.forEach(key -> dedupWindow.remember(key.getKey(), key.getValue()));
+                                unreadCountCache.onInserted(inserted, countVersions);
+                                return recentFeedCache.onInserted(inserted)
+                                        .thenReturn(result(batchNumber, inserted.size(), rejected,
+                                                duplicatesInMemory + duplicatesInDatabase, null));
+                            });
+                })
+                .onErrorResume(error -> {
+                    log.error("Failed to insert batch {} of {} notifications", batchNumber, fresh.size(), error);
+                    return Mono.just(result(batchNumber, 0, batch.size() - duplicatesInMemory,
+                            duplicatesInMemory, STORE_FAILED));
+                });
+    }
+
+    /*
+     * Возвращает вставленные строки с id из БД, в порядке VALUES. С DEDUP_INSERT_SUFFIX ключи
+     * занимаются в notification_dedup_keys через ON CONFLICT DO NOTHING, в notifications попадают
+     * строки без ключа и строки, чей ключ удалось занять. Конкурентная пачка с тем же ключом ждет
+     * на PK таблицы ключей и после коммита первой получает конфликт.
+     */
+    private Mono<List<Notification>> insert(List<NotificationDto> rows, String suffix) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + suffix.length() + rows.size() * 100)
+                .append(INSERT_PREFIX);
+        appendValues(sql, rows.size());
+        sql.append(suffix);
+
+        List<Notification> candidates = new ArrayList<>(rows.size());
+        DatabaseClient.GenericExecuteSpec spec = bindRows(databaseClient.sql(sql.toString()), rows, candidates);
+
+        return spec.map(row -> {
+                    Notification notification = candidates.get(row.get("ord", Integer.class));
+                    notification.setId(row.get("id", Long.class));
+                    return notification;
+                })
+                .all()
+                .collectList();
+    }
+
+    private static void appendValues(StringBuilder sql, int rows) {
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                sql.append(',');
+            }
+            sql.append('(');
+            for (int column = 1; column <= COLUMNS; column++) {
+                if (column > 1) {
+                    sql.append(',');
+                }
+                sql.append('$').append(row * COLUMNS + column).append("::").append(CASTS[column - 1]);
+            }
+            // Порядковый номер строки: по нему результат сопоставляется с пачкой
+            sql.append(',').append(row).append(')');
+        }
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindRows(DatabaseClient.GenericExecuteSpec spec,
+                                                              List<NotificationDto> rows,
+                                                              List<Notification> inserted) {
+        // Точность TIMESTAMP в Postgres - микросекунды: createdAt в кэше должен совпадать с БД до знака
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        for (int row = 0; row < rows.size(); row++) {
+            NotificationDto n = rows.get(row);
+            int base = row * COLUMNS;
+            spec = spec.bind(base, n.userId())
+                    .bind(base + 1, n.type())
+                    .bind(base + 2, n.title());
+            spec = n.message() != null ? spec.bind(base + 3, n.message()) : spec.bindNull(base + 3, String.class);
+            spec = n.source() != null ? spec.bind(base + 4, n.source()) : spec.bindNull(base + 4, String.class);
+            LocalDateTime createdAt = n.createdAt() != null ? n.createdAt() : now;
+            spec = spec.bind(base + 5, n.read())
+                    .bind(base + 6, createdAt);
+            spec = n.dedupKey() != null ? spec.bind(base + 7, n.dedupKey()) : spec.bindNull(base + 7, String.class);
+            inserted.add(Notification.builder()
+                    .userId(n.userId())
+                    .type(n.type())
+                    .title(n.title())
+                    .message(n.message())
+                    .source(n.source())
+                    .read(n.read())
+                    .createdAt(createdAt)
+                    .build());
+        }
+        return spec;
+    }
+
+    private boolean isValid(NotificationDto notification) {
+        return notification != null
+                && notification.userId() != null && notification.userId() > 0
+                && notification.type() != null && !notification.type().isEmpty()
+                && notification.title() != null && !notification.title().isEmpty()
+                && (notification.dedupKey() == null
+                    || (!notification.dedupKey().isEmpty() && notification.dedupKey().length() <= MAX_DEDUP_KEY_LENGTH));
+    }
+
+    private BatchResult result(long batchNumber, int accepted, int failed, int duplicates, String error) {
+        return BatchResult.builder()
+                .batch(batchNumber)
+                .accepted(accepted)
+                .failed(failed)
+                .duplicates(duplicates)
+                .error(error)
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.notification.serviceb;
+
+import com.notification.common.NotificationDigest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сводка mode=digest по потоку в порядке ленты (created_at DESC): в памяти только группы текущего
+ * окна - не больше одной на тип. Как только приходит строка из более старого окна, группы текущего
+ * отдаются дальше, поэтому лента не буферизуется целиком. Окна считаются от 1970-01-01,
+ * как date_bin в {@link com.notification.common.NotificationRepository#findUnreadDigest}.
+ * Состояние на одну подписку, не потокобезопасен.
+ */
+final class NotificationDigestAccumulator {
+
+    // Порядок сводки: окна от новых к старым, внутри окна - по последнему уведомлению
+    static final Comparator<NotificationDigest> NEWEST_DIGEST_FIRST = Comparator
+            .comparing(NotificationDigest::bucket, Comparator.reverseOrder())
+            .thenComparing(NotificationDigest::lastAt, Comparator.reverseOrder());
+
+    private final long bucketSeconds;
+    private final Map<String, Group> groups = new HashMap<>();
+    private long currentBucket = Long.MIN_VALUE;
+
+    NotificationDigestAccumulator(long bucketSeconds) {
+        this.bucketSeconds = bucketSeconds;
+    }
+
+    /**
+     * Учитывает строку и возвращает группы, закрытые переходом в другое окно (обычно пусто).
+     */
+    List<NotificationDigest> add(String type, String title, LocalDateTime createdAt) {
+        long bucket = Math.floorDiv(createdAt.toEpochSecond(ZoneOffset.UTC), bucketSeconds);
+        List<NotificationDigest> completed = List.of();
+        if (bucket != currentBucket) {
+            completed = flush();
+            currentBucket = bucket;
+        }
+        Group group = groups.get(type);
+        if (group == null) {
+            groups.put(type, new Group(type, title, createdAt));
+        } else {
+            group.add(title, createdAt);
+        }
+        return completed;
+    }
+
+    List<NotificationDigest> flush() {
+        if (groups.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime bucketStart = LocalDateTime.ofEpochSecond(currentBucket * bucketSeconds, 0, ZoneOffset.UTC);
+        List<NotificationDigest> completed = new ArrayList<>(groups.size());
+        for (Group group : groups.values()) {
+            completed.add(group.toDigest(bucketStart));
+        }
+        completed.sort(NEWEST_DIGEST_FIRST);
+        groups.clear();
+        return completed;
+    }
+
+    /**
+     * Складывает две сводки одной группы (type, bucket), например личную из SQL и по рассылкам.
+     */
+    static NotificationDigest combine(NotificationDigest a, NotificationDigest b) {
+        NotificationDigest latest = a.lastAt().isBefore(b.lastAt()) ? b : a;
+        return latest.toBuilder()
+                .count(a.count() + b.count())
+                .firstAt(a.firstAt().isBefore(b.firstAt()) ? a.firstAt() : b.firstAt())
+                .build();
+    }
+
+    private static final class Group {
+        private final String type;
+        private String latestTitle;
+        private LocalDateTime firstAt;
+        private LocalDateTime lastAt;
+        private long count;
+
+        private Group(String type, String title, LocalDateTime createdAt) {
+            this.type = type;
+            this.latestTitle = title;
+            this.firstAt = createdAt;
+            this.lastAt = createdAt;
+            this.count = 1;
+        }
+
+        // Вход упорядочен от новых к старым, но сравнение не полагается на это
+        private void add(String title, LocalDateTime createdAt) {
+            count++;
+            if (createdAt.isAfter(lastAt)) {
+                lastAt = createdAt;
+                latestTitle = title;
+            } else if (createdAt.isBefore(firstAt)) {
+                firstAt = createdAt;
+            }
+        }
+
+        private NotificationDigest toDigest(LocalDateTime bucketStart) {
+            return NotificationDigest.builder()
+                    .type(type)
+                    .bucket(bucketStart)
+                    .count(count)
+                    .latestTitle(latestTitle)
+                    .firstAt(firstAt)
+                    .lastAt(lastAt)
+                    .build();
+        }
+    }
+}
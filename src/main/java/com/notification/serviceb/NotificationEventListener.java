@@ -0,0 +1,122 @@
+package com.notification.serviceb;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.common.NotificationDto;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Держит одно выделенное (вне пула) LISTEN-соединение на узел и раздает события
+ * из канала notification_events через {@link NotificationSinkRegistry}. События канала broadcast_events
+ * перечитывают {@link BroadcastSnapshot} или сбрасывают watermark пользователя, события read_events
+ * сбрасывают кэши прочитавшего пользователя.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.service-b.live.enabled", havingValue = "true", matchIfMissing = true)
+public class NotificationEventListener {
+
+    private static final String CHANNEL = "notification_events";
+    private static final String BROADCAST_CHANNEL = "broadcast_events";
+    private static final String READ_CHANNEL = ReadEventPublisher.CHANNEL;
+
+    private final NotificationSinkRegistry sinkRegistry;
+    private final RecentFeedCache recentFeedCache;
+    private final UnreadCountCache unreadCountCache;
+    private final BroadcastSnapshot broadcastSnapshot;
+    private final ReadEventPublisher readEventPublisher;
+    private final ObjectMapper objectMapper;
+
+    @Value("${spring.r2dbc.url}")
+    private String url;
+
+    @Value("${spring.r2dbc.username}")
+    private String username;
+
+    @Value("${spring.r2dbc.password}")
+    private String password;
+
+    private Disposable subscription;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+
+        subscription = Flux.usingWhen(
+                        Mono.from(connectionFactory.create()).cast(PostgresqlConnection.class),
+                        connection -> connection.createStatement("LISTEN " + CHANNEL + "; LISTEN " + BROADCAST_CHANNEL
+                                        + "; LISTEN " + READ_CHANNEL).execute()
+                                .flatMap(PostgresqlResult::getRowsUpdated)
+                                .doOnComplete(() -> log.info("Listening on channels {}, {}, {}",
+                                        CHANNEL, BROADCAST_CHANNEL, READ_CHANNEL))
+                                .thenMany(connection.getNotifications())
+                                // Закрытие соединения сервером - повод переподключиться
+                                .concatWith(Mono.error(new IllegalStateException("LISTEN connection closed"))),
+                        PostgresqlConnection::close)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("LISTEN connection lost, reconnecting: {}",
+                                signal.failure().getMessage())))
+                .subscribe(notification -> {
+                    if (BROADCAST_CHANNEL.equals(notification.getName())) {
+                        broadcastSnapshot.onEvent(notification.getParameter()).subscribe(null,
+                                e -> log.warn("Broadcast snapshot refresh failed: {}", e.getMessage()));
+                    } else if (READ_CHANNEL.equals(notification.getName())) {
+                        onRead(notification.getParameter());
+                    } else {
+                        dispatch(notification.getParameter());
+                    }
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private void onRead(String payload) {
+        Long userId = readEventPublisher.remoteUserId(payload);
+        if (userId != null) {
+            unreadCountCache.invalidate(userId);
+            recentFeedCache.onRemoteRead(userId);
+        }
+    }
+
+    private void dispatch(String payload) {
+        if (payload == null) {
+            return;
+        }
+
+        try {
+            NotificationDto notification = objectMapper.readValue(payload, NotificationDto.class);
+            sinkRegistry.publish(notification);
+            unreadCountCache.onRemoteInsert(notification.userId(), notification.id(), notification.read());
+            recentFeedCache.onRemoteInsert(notification.userId(), notification.id()).subscribe();
+        } catch (Exception e) {
+            log.warn("Skipping malformed notification event: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.notification.serviceb;
+
+import com.notification.common.BatchResult;
+import com.notification.common.NotificationDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/notifications")
+@RequiredArgsConstructor
+public class NotificationIngestionController {
+
+    private final NotificationBatchWriter batchWriter;
+
+    @Value("${app.service-b.notification-batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.service-b.notification-interval-ms:1000}")
+    private long intervalMs;
+
+    @PostMapping(value = "/batch",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchResult> ingest(@RequestBody Flux<NotificationDto> notifications) {
+        AtomicLong batchCounter = new AtomicLong();
+
+        // Пачка закрывается по размеру или по таймеру - что наступит раньше. fairBackpressure: пока concatMap
+        // пишет предыдущую пачку, таймер не выталкивает новую без запроса (иначе OverflowException при медленной БД)
+        return notifications
+                .bufferTimeout(batchSize, Duration.ofMillis(intervalMs), true)
+                // concatMap: одно соединение из пула на входящий поток
+                .concatMap(batch -> batchWriter.write(batchCounter.incrementAndGet(), batch))
+                .doOnNext(result -> log.debug("Ingested batch {}: accepted={}, failed={}, duplicates={}",
+                        result.getBatch(), result.getAccepted(), result.getFailed(), result.getDuplicates()));
+    }
+}
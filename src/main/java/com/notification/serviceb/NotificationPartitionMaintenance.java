@@ -0,0 +1,103 @@
+package com.notification.serviceb;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Обслуживает помесячные партиции notifications (миграция V3): заранее создает партиции
+ * на ближайшие месяцы и удаляет устаревшие через DROP TABLE вместо DELETE.
+ * Заодно чистит notification_dedup_keys (V5) от ключей старше окна хранения.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.service-b.partitions.maintenance-enabled", havingValue = "true", matchIfMissing = true)
+public class NotificationPartitionMaintenance {
+
+    private final DatabaseClient databaseClient;
+
+    @Value("${app.service-b.partitions.retention-months:12}")
+    private int retentionMonths;
+
+    @Value("${app.service-b.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${app.service-b.partitions.interval:6h}")
+    private Duration interval;
+
+    @Value("${app.service-b.dedup.key-retention:7d}")
+    private Duration dedupKeyRetention;
+
+    private Disposable subscription;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (retentionMonths <= 0) {
+            throw new IllegalArgumentException("app.service-b.partitions.retention-months must be positive");
+        }
+        subscription = Flux.interval(Duration.ZERO, interval)
+                .onBackpressureDrop()
+                // Ошибка одного прогона не должна останавливать расписание
+                .concatMap(tick -> runOnce()
+                        .onErrorResume(e -> {
+                            log.error("Partition maintenance failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    public Mono<Integer> runOnce() {
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        LocalDate cutoff = currentMonth.minusMonths(retentionMonths);
+
+        return databaseClient.sql("SELECT create_notification_partitions(:fromMonth, :monthsAhead)")
+                .bind("fromMonth", currentMonth)
+                .bind("monthsAhead", monthsAhead)
+                .then()
+                .then(databaseClient.sql("SELECT drop_notification_partitions_before(:cutoff) AS dropped")
+                        .bind("cutoff", cutoff)
+                        .map(row -> row.get("dropped", Integer.class))
+                        .one())
+                .doOnNext(dropped -> {
+                    if (dropped > 0) {
+                        log.info("Dropped {} notification partitions older than {}", dropped, cutoff);
+                    }
+                })
+                .flatMap(dropped -> purgeDedupKeys().thenReturn(dropped));
+    }
+
+    // Повтор старше окна хранения снова создаст уведомление: окно должно перекрывать ретраи продюсеров
+    private Mono<Long> purgeDedupKeys() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(dedupKeyRetention);
+        return databaseClient.sql("DELETE FROM notification_dedup_keys WHERE created_at < :cutoff")
+                .bind("cutoff", cutoff)
+                .fetch()
+                .rowsUpdated()
+                .doOnNext(purged -> {
+                    if (purged > 0) {
+                        log.info("Purged {} dedup keys older than {}", purged, cutoff);
+                    }
+                });
+    }
+}
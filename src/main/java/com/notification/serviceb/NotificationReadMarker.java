@@ -0,0 +1,98 @@
+package com.notification.serviceb;
+
+import com.notification.common.MarkReadRequest;
+import com.notification.common.NotificationStore;
+import com.notification.common.StreamCursor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+
+/**
+ * Отмечает уведомления прочитанными одним set-based UPDATE и поправляет счетчик непрочитанных.
+ * Рассылки отмечаются сдвигом read-watermark пользователя в {@link BroadcastSnapshot}.
+ * Кэши других узлов сбрасываются событием {@link ReadEventPublisher}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationReadMarker {
+
+    private final NotificationStore notificationStore;
+    private final UnreadCountCache unreadCountCache;
+    private final RecentFeedCache recentFeedCache;
+    private final BroadcastSnapshot broadcastSnapshot;
+    private final ReadEventPublisher readEventPublisher;
+
+    @Value("${app.service-b.mark-read-max-ids:10000}")
+    private int maxIds;
+
+    public Mono<Long> markRead(MarkReadRequest request) {
+        Long userId = request.getUserId();
+        if (userId == null || userId <= 0) {
+            return Mono.error(new IllegalArgumentException("userId must be positive"));
+        }
+
+        boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+        StreamCursor upTo;
+        try {
+            upTo = watermark(request);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+
+        if (byIds == (upTo != null)) {
+            return Mono.error(new IllegalArgumentException(
+                    "either ids, upTo or upToCreatedAt/upToId must be provided"));
+        }
+
+        if (byIds && request.getIds().size() > maxIds) {
+            return Mono.error(new IllegalArgumentException("at most " + maxIds + " ids per request"));
+        }
+
+        LocalDateTime readAt = LocalDateTime.now();
+        Mono<Long> update = byIds
+                ? notificationStore.markReadByIds(userId, request.getIds().toArray(new Long[0]), readAt)
+                : notificationStore.markReadUpTo(userId, upTo.createdAt(), upTo.id(), readAt);
+
+        Mono<Long> personal = update.flatMap(updated -> {
+            if (updated == 0) {
+                return Mono.just(updated);
+            }
+            unreadCountCache.decrement(userId, updated);
+            Mono<Void> feedUpdate = byIds
+                    ? recentFeedCache.onMarkedRead(userId, new HashSet<>(request.getIds()))
+                    : recentFeedCache.onMarkedReadUpTo(userId, upTo.createdAt(), upTo.id());
+            return feedUpdate.thenReturn(updated);
+        });
+
+        Mono<Long> broadcasts = byIds
+                // Watermark по ids может захватить и более старые рассылки - срез проще перечитать
+                ? broadcastSnapshot.markReadIds(userId, request.getIds())
+                        .flatMap(read -> read > 0 ? recentFeedCache.invalidate(userId).thenReturn(read) : Mono.just(read))
+                : broadcastSnapshot.markReadUpTo(userId, upTo)
+                        .flatMap(read -> read > 0
+                                ? recentFeedCache.onMarkedReadUpTo(userId, upTo.createdAt(), upTo.id())
+                                        .thenReturn(read)
+                                : Mono.just(read));
+
+        return personal.zipWith(broadcasts, Long::sum)
+                .flatMap(updated -> updated > 0 ? readEventPublisher.publish(userId).thenReturn(updated) : Mono.just(updated))
+                .doOnNext(updated -> log.info("Marked {} notifications as read for userId: {}", updated, userId));
+    }
+
+    // cursor важнее пары полей: он несет created_at до микросекунд
+    private static StreamCursor watermark(MarkReadRequest request) {
+        if (request.getUpTo() != null && !request.getUpTo().isEmpty()) {
+            return StreamCursor.decode(request.getUpTo());
+        }
+        if (request.getUpToCreatedAt() != null && request.getUpToId() != null) {
+            return new StreamCursor(request.getUpToCreatedAt(), request.getUpToId());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,78 @@
+package com.notification.serviceb;
+
+import com.notification.common.NotificationDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Реестр live-подписок: один multicast sink на пользователя, пока у него есть открытые стримы.
+ * Медленный подписчик не тормозит остальных - у каждого свой ограниченный буфер,
+ * при переполнении выбрасываются самые старые элементы.
+ */
+@Slf4j
+@Component
+public class NotificationSinkRegistry {
+
+    private final Map<Long, UserChannel> channels = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @Value("${app.service-b.live.subscriber-buffer-size:256}")
+    private int subscriberBufferSize;
+
+    public Flux<NotificationDto> subscribe(Long userId) {
+        return Flux.defer(() -> {
+            UserChannel channel = channels.compute(userId, (id, existing) -> {
+                UserChannel current = existing != null ? existing : new UserChannel();
+                current.subscribers++;
+                return current;
+            });
+
+            return channel.sink.asFlux()
+                    .onBackpressureBuffer(subscriberBufferSize,
+                            notification -> dropped.incrementAndGet(),
+                            BufferOverflowStrategy.DROP_OLDEST)
+                    .doFinally(signal -> release(userId, channel));
+        });
+    }
+
+    public void publish(NotificationDto notification) {
+        UserChannel channel = channels.get(notification.userId());
+        if (channel == null) {
+            return;
+        }
+
+        Sinks.EmitResult result = channel.sink.tryEmitNext(notification);
+        if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            log.warn("Failed to push notification {} to userId: {} ({})",
+                    notification.id(), notification.userId(), result);
+        }
+    }
+
+    public int activeUsers() {
+        return channels.size();
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    private void release(Long userId, UserChannel channel) {
+        channels.computeIfPresent(userId, (id, existing) ->
+                existing == channel && --existing.subscribers == 0 ? null : existing);
+    }
+
+    private static final class UserChannel {
+        // directBestEffort: sink не буферизует сам, буферы живут у подписчиков
+        private final Sinks.Many<NotificationDto> sink = Sinks.many().multicast().directBestEffort();
+        // Меняется только внутри compute/computeIfPresent
+        private int subscribers;
+    }
+}
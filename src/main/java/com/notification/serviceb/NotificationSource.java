@@ -0,0 +1,15 @@
+package com.notification.serviceb;
+
+import com.notification.common.NotificationDto;
+import reactor.core.publisher.Flux;
+
+/**
+ * Источник уведомлений одного типа для {@link NotificationStreamBuilder}.
+ * Поток обязан быть упорядочен по createdAt от новых к старым - на этом держится k-way merge.
+ */
+public interface NotificationSource {
+
+    String type();
+
+    Flux<NotificationDto> stream(Long userId, int limit);
+}
@@ -0,0 +1,25 @@
+package com.notification.serviceb;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class NotificationSourceConfig {
+
+    private static final int SYNTHETIC_SOURCE_SIZE = 3;
+
+    @Bean
+    public NotificationSource systemNotificationSource() {
+        return new SyntheticNotificationSource("SYSTEM", "System", 0, 0, SYNTHETIC_SOURCE_SIZE);
+    }
+
+    @Bean
+    public NotificationSource userNotificationSource() {
+        return new SyntheticNotificationSource("USER", "User", 100, 3, SYNTHETIC_SOURCE_SIZE);
+    }
+
+    @Bean
+    public NotificationSource socialNotificationSource() {
+        return new SyntheticNotificationSource("SOCIAL", "Social", 200, 6, SYNTHETIC_SOURCE_SIZE);
+    }
+}
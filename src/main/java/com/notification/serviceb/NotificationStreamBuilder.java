@@ -1,161 +1,317 @@
 package com.notification.serviceb;
 
+import com.notification.common.Notification;
+import com.notification.common.NotificationDigest;
 import com.notification.common.NotificationDto;
+import com.notification.common.NotificationStore;
+import com.notification.common.NotificationType;
+import com.notification.common.StreamCursor;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.publisher.Mono;
+import reactor.core.observability.micrometer.Micrometer;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalTime;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class NotificationStreamBuilder {
 
-    // ОПТИМИЗАЦИЯ 1: Статические thread-safe DateTimeFormatter (вместо создания в каждом вызове)
-    private static final DateTimeFormatter STANDARD_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    private static final String SYSTEM_PREFIX = "[SYSTEM] ";
-    private static final String USER_PREFIX = "[USER] ";
-    private static final String SOCIAL_PREFIX = "[SOCIAL] ";
+    private static final String SOURCE_REPOSITORY = "repository";
+
+    private static final Comparator<NotificationDto> NEWEST_FIRST =
+            Comparator.comparing(NotificationDto::createdAt).reversed();
+
+    // Порядок ленты из БД: (created_at DESC, id DESC)
+    private static final Comparator<Notification> NEWEST_ROW_FIRST = Comparator
+            .comparing(Notification::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(Notification::getId, Comparator.reverseOrder());
+
+    private final NotificationStore notificationStore;
+    private final List<NotificationSource> notificationSources;
+    private final NotificationSinkRegistry sinkRegistry;
+    private final MeterRegistry meterRegistry;
+    private final BroadcastSnapshot broadcastSnapshot;
+
+    // synthetic - сгенерированные списки, repository - чтение из таблицы notifications
+    @Value("${app.service-b.stream-source:synthetic}")
+    private String streamSource;
+
+    @Value("${app.service-b.keyset-page-size:500}")
+    private int keysetPageSize;
+
+    // Метрики операторов по стадиям (merge, format, repository) - notification.stream.stage.*
+    @Value("${app.metrics.stream-stages.enabled:true}")
+    private boolean stageMetricsEnabled;
 
     public Flux<NotificationDto> buildNotificationStream(Long userId, Integer limit, String filter) {
+        return buildNotificationStream(userId, limit, filter, null);
+    }
+
+    public Flux<NotificationDto> buildNotificationStream(Long userId, Integer limit, String filter, String cursor) {
         log.debug("Building notification stream for userId: {}, limit: {}, filter: {}", userId, limit, filter);
 
-        // ОПТИМИЗАЦИЯ 2: Используем Flux.merge для объединения потоков вместо вложенных циклов
-        return Flux.merge(
-                Flux.fromIterable(generateSystemNotifications(userId, limit)),
-                Flux.fromIterable(generateUserNotifications(userId, limit)),
-                Flux.fromIterable(generateSocialNotifications(userId, limit))
-        )
-        // ОПТИМИЗАЦИЯ 3: Одна фильтрация вместо множественных
-        .filter(n -> !n.isRead())
-        .filter(n -> filter == null || filter.isEmpty() || n.getType().equalsIgnoreCase(filter))
-        // Собираем в список для сортировки (reactive streams не гарантируют порядок)
-        .collectList()
-        .flatMapMany(notifications -> {
-            // ОПТИМИЗАЦИЯ 4: Collections.sort() O(n log n) вместо Bubble Sort O(n²)
-            List<NotificationDto> sorted = notifications.stream()
-                    .sorted(Comparator.comparing(NotificationDto::getCreatedAt).reversed())
-                    .limit(limit != null ? limit : Long.MAX_VALUE)
-                    .collect(Collectors.toList());
-
-            log.info("Generated {} notifications for userId: {}", sorted.size(), userId);
-            return Flux.fromIterable(sorted);
-        })
-        // ОПТИМИЗАЦИЯ 5: Batching для более эффективной обработки
-        .buffer(100)
-        .flatMap(batch ->
-            Flux.fromIterable(batch)
-                // ОПТИМИЗАЦИЯ 6: flatMap с ограниченной concurrency вместо sequential map
-                .flatMap(this::formatNotificationOptimized, 4)
-                .subscribeOn(Schedulers.parallel()),
-            4  // Обрабатываем до 4 батчей параллельно
-        )
+        if (SOURCE_REPOSITORY.equalsIgnoreCase(streamSource)) {
+            return buildPersistentNotificationStream(userId, limit, filter,
+                    cursor != null && !cursor.isEmpty() ? StreamCursor.decode(cursor) : null);
+        }
+
+        // У синтетических источников нет стабильных позиций, продолжить с курсора нельзя
+        if (cursor != null && !cursor.isEmpty()) {
+            return Flux.error(new IllegalArgumentException("cursor is supported only for the repository stream source"));
+        }
+
+        Flux<NotificationDto> merged = stage(mergeSources(userId, limit, filter), "merge");
+
+        // Форматирование - несколько присваиваний на элемент: синхронный map на потоке вызова,
+        // без буферов и перехода на другой scheduler
+        return stage(merged.map(this::format), "format")
         .doOnCancel(() -> log.info("Notification stream subscription cancelled for userId: {}", userId))
         .doOnError(error -> log.error("Error in notification stream for userId: {}", userId, error))
         .doOnComplete(() -> log.info("Notification stream completed for userId: {}", userId));
     }
 
-    private List<NotificationDto> generateSystemNotifications(Long userId, Integer limit) {
-        int size = limit != null ? Math.min(limit, 3) : 3;
-
-        // ОПТИМИЗАЦИЯ 7: Stream API для генерации вместо циклов
-        return Stream.iterate(0, i -> i + 1)
-                .limit(size)
-                .map(i -> NotificationDto.builder()
-                        .id((long) i)
-                        .userId(userId)
-                        .type("SYSTEM")
-                        // ОПТИМИЗАЦИЯ 8: String.format вместо конкатенации
-                        .title(String.format("System Notification %d", i + 1))
-                        .message(String.format("System message %d", i + 1))
-                        .source("SYSTEM")
-                        .read(false)
-                        .createdAt(LocalDateTime.now().minusHours(i))
-                        .build())
-                .collect(Collectors.toList());
+    /**
+     * Сводка непрочитанных (mode=digest): группы по типу и окну {@code bucket}, limit - число групп.
+     * Для repository группы считает GROUP BY в БД, рассылки из снимка досчитываются в памяти;
+     * для synthetic сводка строится инкрементально по упорядоченному merge источников.
+     */
+    public Flux<NotificationDigest> buildDigestStream(Long userId, Integer limit, String filter, Duration bucket) {
+        log.debug("Building digest stream for userId: {}, limit: {}, filter: {}, bucket: {}", userId, limit, filter, bucket);
+        long bucketSeconds = bucket.toSeconds();
+
+        Flux<NotificationDigest> digest;
+        if (SOURCE_REPOSITORY.equalsIgnoreCase(streamSource)) {
+            String type = filter == null || filter.isEmpty() ? null : filter.toUpperCase(Locale.ROOT);
+            int groups = limit != null ? limit : Integer.MAX_VALUE;
+            digest = stage(withBroadcastDigest(cap -> notificationStore.findUnreadDigest(userId, type, bucketSeconds, cap),
+                    userId, type, bucketSeconds, groups), "repository");
+        } else {
+            Flux<NotificationDigest> aggregated = aggregate(mergeSources(userId, null, filter), bucketSeconds);
+            // take отменяет merge, как только набрано limit групп: остаток ленты не читается
+            digest = stage(limit != null ? aggregated.take(limit) : aggregated, "merge");
+        }
+
+        return digest.map(this::formatDigest)
+                .doOnCancel(() -> log.info("Digest stream subscription cancelled for userId: {}", userId))
+                .doOnError(error -> log.error("Error in digest stream for userId: {}", userId, error))
+                .doOnComplete(() -> log.info("Digest stream completed for userId: {}", userId));
     }
 
-    private List<NotificationDto> generateUserNotifications(Long userId, Integer limit) {
-        int size = limit != null ? Math.min(limit, 3) : 3;
-
-        return Stream.iterate(0, i -> i + 1)
-                .limit(size)
-                .map(i -> NotificationDto.builder()
-                        .id((long) (100 + i))
-                        .userId(userId)
-                        .type("USER")
-                        .title(String.format("User Notification %d", i + 1))
-                        .message(String.format("User message %d", i + 1))
-                        .source("USER")
-                        .read(false)
-                        .createdAt(LocalDateTime.now().minusHours(i + 3))
-                        .build())
-                .collect(Collectors.toList());
+    /**
+     * Поток непрочитанных уведомлений из БД: keyset-страницы по (created_at DESC, id DESC),
+     * фильтр по типу и limit применяются в SQL, в памяти не больше одной страницы, без collectList() всей ленты.
+     * Каждый элемент несет cursor; с ним стрим продолжается ровно со следующей строки, без OFFSET.
+     */
+    public Flux<NotificationDto> buildPersistentNotificationStream(Long userId, Integer limit, String filter,
+                                                                   StreamCursor after) {
+        String type = filter == null || filter.isEmpty() ? null : filter.toUpperCase(Locale.ROOT);
+        long total = limit != null ? limit : Long.MAX_VALUE;
+
+        return stage(withBroadcasts(readUnreadPages(userId, type, after, total), userId, type, after, total), "repository")
+                .map(this::formatStored)
+                .transform(formatted -> stage(formatted, "format"))
+                .doOnCancel(() -> log.info("Notification stream subscription cancelled for userId: {}", userId))
+                .doOnError(error -> log.error("Error in notification stream for userId: {}", userId, error))
+                .doOnComplete(() -> log.info("Notification stream completed for userId: {}", userId));
+    }
+
+    /**
+     * Бесконечный поток новых уведомлений пользователя, приходящих через LISTEN/NOTIFY.
+     * Как и /stream, отдает только непрочитанные: строка, вставленная с read=true, пропускается.
+     */
+    public Flux<NotificationDto> buildLiveNotificationStream(Long userId, String filter) {
+        return sinkRegistry.subscribe(userId)
+                .filter(n -> !n.read())
+                .filter(n -> filter == null || filter.isEmpty() || n.type().equalsIgnoreCase(filter))
+                .map(this::format)
+                .doOnCancel(() -> log.info("Live notification stream cancelled for userId: {}", userId))
+                .doOnError(error -> log.error("Error in live notification stream for userId: {}", userId, error));
     }
 
-    private List<NotificationDto> generateSocialNotifications(Long userId, Integer limit) {
-        int size = limit != null ? Math.min(limit, 3) : 3;
-
-        return Stream.iterate(0, i -> i + 1)
-                .limit(size)
-                .map(i -> NotificationDto.builder()
-                        .id((long) (200 + i))
-                        .userId(userId)
-                        .type("SOCIAL")
-                        .title(String.format("Social Notification %d", i + 1))
-                        .message(String.format("Social message %d", i + 1))
-                        .source("SOCIAL")
-                        .read(false)
-                        .createdAt(LocalDateTime.now().minusHours(i + 6))
-                        .build())
+    // ОПТИМИЗАЦИЯ 2: K-way merge упорядоченных источников вместо collectList() + сортировки всего списка
+    private Flux<NotificationDto> mergeSources(Long userId, Integer limit, String filter) {
+        int perSourceLimit = limit != null ? limit : Integer.MAX_VALUE;
+        List<Flux<NotificationDto>> sources = notificationSources.stream()
+                // ОПТИМИЗАЦИЯ 3: Источники чужого типа даже не подписываются
+                .filter(source -> filter == null || filter.isEmpty() || source.type().equalsIgnoreCase(filter))
+                .map(source -> source.stream(userId, perSourceLimit).filter(n -> !n.read()))
                 .collect(Collectors.toList());
+
+        return OrderedFluxMerge.merge(sources, NEWEST_FIRST, limit != null ? limit : Long.MAX_VALUE);
     }
 
-    // ОПТИМИЗАЦИЯ 9: Упрощенное форматирование без тяжеловесных операций
-    private Flux<NotificationDto> formatNotificationOptimized(NotificationDto notification) {
+    private static Flux<NotificationDigest> aggregate(Flux<NotificationDto> newestFirst, long bucketSeconds) {
         return Flux.defer(() -> {
-            try {
-                // УДАЛЕНО: synchronized блок (DateTimeFormatter thread-safe)
-                // УДАЛЕНО: Множественные преобразования дат
-                // УДАЛЕНО: 6x JSON сериализация/десериализация
-                // УДАЛЕНО: Создание временного объекта через Builder
-
-                // Простое нормализование даты до полудня (12:00:00)
-                LocalDateTime normalized = notification.getCreatedAt()
-                        .withHour(12)
-                        .withMinute(0)
-                        .withSecond(0)
-                        .withNano(0);
-
-                notification.setCreatedAt(normalized);
-
-                // ОПТИМИЗАЦИЯ 10: Switch expression вместо множественных if с дублированием
-                String prefix = switch (notification.getType()) {
-                    case "SYSTEM" -> SYSTEM_PREFIX;
-                    case "USER" -> USER_PREFIX;
-                    case "SOCIAL" -> SOCIAL_PREFIX;
-                    default -> "";
-                };
-
-                // Добавляем префикс, только если его еще нет
-                if (!notification.getTitle().startsWith(prefix)) {
-                    notification.setTitle(prefix + notification.getTitle());
-                }
-
-                log.debug("Formatted notification: id={}, type={}, title={}",
-                        notification.getId(), notification.getType(), notification.getTitle());
-
-                return Flux.just(notification);
-            } catch (Exception e) {
-                log.error("Error formatting notification", e);
-                return Flux.error(e);
-            }
+            NotificationDigestAccumulator accumulator = new NotificationDigestAccumulator(bucketSeconds);
+            return newestFirst
+                    .concatMapIterable(n -> accumulator.add(n.type(), n.title(), n.createdAt()))
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(accumulator.flush())));
         });
     }
+
+    // personal(cap) - группы из SQL не больше cap. Без рассылок limit применяется в SQL; с рассылками
+    // группы читаются без ограничения: рассылка может попасть в группу за пределами первых limit,
+    // и ее count тогда был бы неполным. limit - после слияния в памяти
+    private Flux<NotificationDigest> withBroadcastDigest(IntFunction<Flux<NotificationDigest>> personal, Long userId,
+                                                         String type, long bucketSeconds, int limit) {
+        if (broadcastSnapshot == null || broadcastSnapshot.isEmpty()) {
+            return personal.apply(limit);
+        }
+        return broadcastSnapshot.unreadFor(userId, type, null)
+                .flatMapMany(broadcasts -> {
+                    if (broadcasts.isEmpty()) {
+                        return personal.apply(limit);
+                    }
+                    NotificationDigestAccumulator accumulator = new NotificationDigestAccumulator(bucketSeconds);
+                    Map<DigestKey, NotificationDigest> groups = new HashMap<>();
+                    for (Notification broadcast : broadcasts) {
+                        accumulator.add(broadcast.getType(), broadcast.getTitle(), broadcast.getCreatedAt())
+                                .forEach(group -> groups.merge(DigestKey.of(group), group,
+                                        NotificationDigestAccumulator::combine));
+                    }
+                    accumulator.flush().forEach(group -> groups.merge(DigestKey.of(group), group,
+                            NotificationDigestAccumulator::combine));
+
+                    return personal.apply(Integer.MAX_VALUE).collectList().flatMapIterable(stored -> {
+                        stored.forEach(group -> groups.merge(DigestKey.of(group), group,
+                                NotificationDigestAccumulator::combine));
+                        return groups.values().stream()
+                                .sorted(NotificationDigestAccumulator.NEWEST_DIGEST_FIRST)
+                                .limit(limit)
+                                .toList();
+                    });
+                });
+    }
+
+    // Рассылки хранятся одной строкой на всех и подмешиваются в ленту упорядоченным merge
+    private Flux<Notification> withBroadcasts(Flux<Notification> personal, Long userId, String type,
+                                              StreamCursor after, long total) {
+        if (broadcastSnapshot == null || broadcastSnapshot.isEmpty()) {
+            return personal;
+        }
+        return broadcastSnapshot.unreadFor(userId, type, after)
+                .flatMapMany(broadcasts -> broadcasts.isEmpty()
+                        ? personal
+                        : OrderedFluxMerge.merge(List.of(personal, Flux.fromIterable(broadcasts)), NEWEST_ROW_FIRST, total));
+    }
+
+    // Следующая страница запрашивается только после того, как текущая полностью прочитана.
+    // expand разворачивает цепочку страниц в цикле: глубина операторов и стека не растет с числом страниц
+    private Flux<Notification> readUnreadPages(Long userId, String type, StreamCursor after, long total) {
+        return readUnreadPage(userId, type, after, total)
+                .expand(page -> page.hasNext()
+                        ? readUnreadPage(userId, type, StreamCursor.of(page.last()), page.remaining())
+                        : Mono.empty())
+                .concatMapIterable(KeysetPage::rows);
+    }
+
+    private Mono<KeysetPage> readUnreadPage(Long userId, String type, StreamCursor after, long remaining) {
+        int pageSize = (int) Math.min(keysetPageSize, remaining);
+        return fetchUnreadPage(userId, type, after, pageSize)
+                .collectList()
+                .map(rows -> new KeysetPage(rows, pageSize, remaining - rows.size()));
+    }
+
+    private Flux<Notification> fetchUnreadPage(Long userId, String type, StreamCursor after, int pageSize) {
+        if (after == null) {
+            return type == null
+                    ? notificationStore.findUnreadFirstPage(userId, pageSize)
+                    : notificationStore.findUnreadByTypeFirstPage(userId, type, pageSize);
+        }
+        return type == null
+                ? notificationStore.findUnreadPageAfter(userId, after.createdAt(), after.id(), pageSize)
+                : notificationStore.findUnreadByTypePageAfter(
+                        userId, type, after.createdAt(), after.id(), pageSize);
+    }
+
+    /**
+     * Строка из БД в том виде, в каком ее отдает persistent-стрим (с cursor и форматированием):
+     * сразу готовый DTO, без промежуточного неотформатированного.
+     */
+    NotificationDto formatStored(Notification notification) {
+        NotificationType type = NotificationType.of(notification.getType());
+        return NotificationDto.builder()
+                .id(notification.getId())
+                .userId(notification.getUserId())
+                .type(type != null ? type.name() : notification.getType())
+                .title(type != null ? type.prefixed(notification.getTitle()) : notification.getTitle())
+                .message(notification.getMessage())
+                .source(NotificationType.canonical(notification.getSource()))
+                .read(notification.isRead())
+                .createdAt(normalize(notification.getCreatedAt()))
+                .readAt(notification.getReadAt())
+                // Курсор из исходного createdAt: в DTO дата нормализована
+                .cursor(StreamCursor.of(notification).encode())
+                .build();
+    }
+
+    // Package-private для JMH-бенчмарков (src/jmh/java)
+    NotificationDto format(NotificationDto notification) {
+        NotificationType type = NotificationType.of(notification.type());
+        return notification.toBuilder()
+                .type(type != null ? type.name() : notification.type())
+                .title(type != null ? type.prefixed(notification.title()) : notification.title())
+                .source(NotificationType.canonical(notification.source()))
+                .createdAt(normalize(notification.createdAt()))
+                .build();
+    }
+
+    private NotificationDigest formatDigest(NotificationDigest digest) {
+        NotificationType type = NotificationType.of(digest.type());
+        if (type == null) {
+            return digest;
+        }
+        return digest.toBuilder()
+                .type(type.name())
+                .latestTitle(type.prefixed(digest.latestTitle()))
+                .build();
+    }
+
+    // Дата нормализуется до полудня (12:00:00); LocalDate берется из исходного значения без копирования
+    private static LocalDateTime normalize(LocalDateTime createdAt) {
+        return LocalDateTime.of(createdAt.toLocalDate(), LocalTime.NOON);
+    }
+
+    private <T> Flux<T> stage(Flux<T> flux, String name) {
+        if (!stageMetricsEnabled) {
+            return flux;
+        }
+        return flux.name("notification.stream.stage")
+                .tag("stage", name)
+                .tap(Micrometer.metrics(meterRegistry));
+    }
+
+    private record DigestKey(String type, LocalDateTime bucket) {
+
+        private static DigestKey of(NotificationDigest digest) {
+            return new DigestKey(digest.type(), digest.bucket());
+        }
+    }
+
+    // Прочитанная страница и сколько строк еще можно отдать после нее
+    private record KeysetPage(List<Notification> rows, int pageSize, long remaining) {
+
+        private boolean hasNext() {
+            return rows.size() == pageSize && remaining > 0;
+        }
+
+        private Notification last() {
+            return rows.get(rows.size() - 1);
+        }
+    }
 }
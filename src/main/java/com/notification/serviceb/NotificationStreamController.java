@@ -1,14 +1,30 @@
 package com.notification.serviceb;
 
+import com.notification.common.ConcurrencyLimiters;
+import com.notification.common.MarkReadRequest;
+import com.notification.common.NdjsonNotificationEncoder;
+import com.notification.common.NotificationDigest;
 import com.notification.common.NotificationDto;
+import com.notification.common.SmileCodecConfig;
+import com.notification.common.StreamMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -16,17 +32,42 @@ import reactor.core.publisher.Flux;
 @RequiredArgsConstructor
 public class NotificationStreamController {
 
+    private static final ResolvableType DTO_TYPE = ResolvableType.forClass(NotificationDto.class);
+    private static final String MODE_ITEMS = "items";
+    private static final Duration MIN_DIGEST_BUCKET = Duration.ofMinutes(1);
+    private static final Duration MAX_DIGEST_BUCKET = Duration.ofDays(7);
+
     private final NotificationStreamBuilder streamBuilder;
+    private final UnreadCountCache unreadCountCache;
+    private final NotificationReadMarker readMarker;
+    private final StreamMetrics streamMetrics;
+    private final ConcurrencyLimiters concurrencyLimiters;
+    private final RecentFeedCache recentFeedCache;
+    private final NdjsonNotificationEncoder encoder;
+    private final BroadcastSnapshot broadcastSnapshot;
+    private final Jackson2SmileEncoder smileEncoder;
 
-    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
-    public Flux<NotificationDto> getNotificationStream(
+    @Value("${app.service-b.digest.bucket:1h}")
+    private Duration defaultDigestBucket;
+
+    // NDJSON по умолчанию; Smile-поток - если клиент (Service A) явно просит его в Accept
+    @GetMapping(value = "/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, SmileCodecConfig.SMILE_STREAM_VALUE})
+    public Flux<DataBuffer> getNotificationStream(
             @RequestParam Long userId,
             @RequestParam(required = false) Integer limit,
             @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String mode,
             ServerWebExchange exchange) {
 
         log.info("Received notification stream request - userId: {}, limit: {}, filter: {}", userId, limit, filter);
 
+        // mode=digest обслуживает getNotificationDigest
+        if (mode != null && !mode.isEmpty() && !MODE_ITEMS.equals(mode)) {
+            log.warn("Invalid mode provided: {}", mode);
+            return Flux.error(new IllegalArgumentException("mode must be items or digest"));
+        }
+
         if (userId == null || userId <= 0) {
             log.warn("Invalid userId provided: {}", userId);
             return Flux.error(new IllegalArgumentException("userId must be positive"));
@@ -39,12 +80,143 @@ public class NotificationStreamController {
 
         log.info("Starting notification stream for userId: {}", userId);
 
-        return streamBuilder.buildNotificationStream(userId, limit, filter)
+        DataBufferFactory bufferFactory = exchange.getResponse().bufferFactory();
+
+        if (acceptsSmile(exchange)) {
+            // Кэш первой страницы хранит NDJSON-строки, поэтому бинарный поток строится мимо него
+            Flux<DataBuffer> binary = concurrencyLimiters.limit("stream", userId,
+                    () -> smileEncoder.encode(streamBuilder.buildNotificationStream(userId, limit, filter, cursor),
+                            bufferFactory, DTO_TYPE, SmileCodecConfig.SMILE_STREAM, null));
+            return streamMetrics.instrument(binary, "stream", filter)
+                    .doFinally(signal -> {
+                        log.info("Binary notification stream ended for userId: {} with signal: {}", userId, signal);
+                    });
+        }
+
+        // Первая страница горячих пользователей отдается готовыми строками из RecentFeedCache
+        Flux<DataBuffer> stream = concurrencyLimiters.limit("stream", userId,
+                () -> recentFeedCache.stream(userId, limit, filter, cursor, bufferFactory,
+                        () -> encoder.encode(streamBuilder.buildNotificationStream(userId, limit, filter, cursor),
+                                bufferFactory)));
+
+        return streamMetrics.instrument(stream, "stream", filter)
                 .doFinally(signal -> {
                     log.info("Notification stream ended for userId: {} with signal: {}", userId, signal);
                 });
     }
 
+    // Сводка вместо строк: по одной записи на (тип, окно bucket) с количеством и последним заголовком
+    @GetMapping(value = "/stream", params = "mode=digest", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<NotificationDigest> getNotificationDigest(
+            @RequestParam Long userId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Duration bucket) {
+
+        log.info("Received notification digest request - userId: {}, limit: {}, filter: {}, bucket: {}",
+                userId, limit, filter, bucket);
+
+        if (userId == null || userId <= 0) {
+            log.warn("Invalid userId provided: {}", userId);
+            return Flux.error(new IllegalArgumentException("userId must be positive"));
+        }
+
+        if (limit != null && limit <= 0) {
+            log.warn("Invalid limit provided: {}", limit);
+            return Flux.error(new IllegalArgumentException("limit must be positive"));
+        }
+
+        if (cursor != null && !cursor.isEmpty()) {
+            return Flux.error(new IllegalArgumentException("cursor is not supported with mode=digest"));
+        }
+
+        Duration window = bucket != null ? bucket : defaultDigestBucket;
+        if (window.compareTo(MIN_DIGEST_BUCKET) < 0 || window.compareTo(MAX_DIGEST_BUCKET) > 0) {
+            log.warn("Invalid bucket provided: {}", bucket);
+            return Flux.error(new IllegalArgumentException("bucket must be between 1m and 7d"));
+        }
+
+        Flux<NotificationDigest> digest = concurrencyLimiters.limit("stream", userId,
+                () -> streamBuilder.buildDigestStream(userId, limit, filter, window));
+
+        return streamMetrics.instrument(digest, "digest", filter)
+                .doFinally(signal -> {
+                    log.info("Notification digest ended for userId: {} with signal: {}", userId, signal);
+                });
+    }
+
+    @GetMapping(value = "/subscribe",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<NotificationDto> subscribe(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String filter) {
+
+        log.info("Received live subscription request - userId: {}, filter: {}", userId, filter);
+
+        if (userId == null || userId <= 0) {
+            log.warn("Invalid userId provided: {}", userId);
+            return Flux.error(new IllegalArgumentException("userId must be positive"));
+        }
+
+        return streamBuilder.buildLiveNotificationStream(userId, filter)
+                .doFinally(signal -> {
+                    log.info("Live subscription ended for userId: {} with signal: {}", userId, signal);
+                });
+    }
+
+    @GetMapping("/unread-count")
+    public Mono<Map<String, Long>> getUnreadCount(@RequestParam Long userId) {
+        if (userId == null || userId <= 0) {
+            log.warn("Invalid userId provided: {}", userId);
+            return Mono.error(new IllegalArgumentException("userId must be positive"));
+        }
+
+        return unreadCountCache.getUnreadCount(userId)
+                .zipWith(broadcastSnapshot.countUnread(userId), Long::sum)
+                .map(count -> Map.of("userId", userId, "unread", count));
+    }
+
+    @PostMapping("/broadcast")
+    public Mono<NotificationDto> broadcast(@RequestBody NotificationDto request,
+                                           @RequestParam(required = false) Duration ttl) {
+        log.info("Received broadcast request - type: {}, title: {}", request.type(), request.title());
+
+        if (request.title() == null || request.title().isBlank()) {
+            return Mono.error(new IllegalArgumentException("title must not be empty"));
+        }
+
+        if (ttl != null && (ttl.isNegative() || ttl.isZero())) {
+            return Mono.error(new IllegalArgumentException("ttl must be positive"));
+        }
+
+        String type = request.type() == null ? "SYSTEM" : request.type().toUpperCase(Locale.ROOT);
+        LocalDateTime expiresAt = ttl == null ? null : LocalDateTime.now().plus(ttl);
+
+        return broadcastSnapshot.publish(type, request.title(), request.message(), request.source(), expiresAt)
+                .map(created -> NotificationDto.builder()
+                        .id(created.getId())
+                        .type(created.getType())
+                        .title(created.getTitle())
+                        .message(created.getMessage())
+                        .source(created.getSource())
+                        .createdAt(created.getCreatedAt())
+                        .build());
+    }
+
+    @PostMapping("/read")
+    public Mono<Map<String, Long>> markRead(@RequestBody MarkReadRequest request) {
+        log.info("Received mark-as-read request - userId: {}", request.getUserId());
+
+        return readMarker.markRead(request)
+                .map(updated -> Map.of("userId", request.getUserId(), "updated", updated));
+    }
+
+    private static boolean acceptsSmile(ServerWebExchange exchange) {
+        return exchange.getRequest().getHeaders().getAccept().stream()
+                .anyMatch(SmileCodecConfig.SMILE_STREAM::equalsTypeAndSubtype);
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Service B is healthy");
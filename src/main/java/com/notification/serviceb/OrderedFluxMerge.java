@@ -0,0 +1,38 @@
+package com.notification.serviceb;
+
+import reactor.core.publisher.Flux;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * K-way merge заранее упорядоченных потоков.
+ * В каждый момент держит по {@code prefetch} элементов на источник (O(sources) памяти),
+ * выбирает минимальную голову по компаратору и уважает backpressure подписчика.
+ */
+public final class OrderedFluxMerge {
+
+    private static final int DEFAULT_PREFETCH = 1;
+
+    private OrderedFluxMerge() {
+    }
+
+    public static <T> Flux<T> merge(List<Flux<T>> sources, Comparator<? super T> comparator, long limit) {
+        return merge(sources, comparator, limit, DEFAULT_PREFETCH);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Flux<T> merge(List<Flux<T>> sources, Comparator<? super T> comparator,
+                                    long limit, int prefetch) {
+        if (sources.isEmpty() || limit <= 0) {
+            return Flux.empty();
+        }
+
+        Flux<T> merged = sources.size() == 1
+                ? sources.get(0)
+                : Flux.mergeComparing(prefetch, comparator, sources.toArray(new Flux[0]));
+
+        // take() отменяет все источники сразу после limit элементов
+        return limit == Long.MAX_VALUE ? merged : merged.take(limit, true);
+    }
+}
@@ -0,0 +1,56 @@
+package com.notification.serviceb;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Отметка о прочтении на этом узле - событие канала read_events для остальных: их L1-срезы ленты
+ * и счетчики непрочитанных пользователя устарели. Payload - "nodeId:userId"; свои события узел
+ * пропускает, у него кэши уже поправлены на месте.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReadEventPublisher {
+
+    static final String CHANNEL = "read_events";
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Вызывается после коммита UPDATE: получатели перечитывают уже новое состояние.
+     * Ошибка только логируется - чужие кэши тогда доживают до своего ttl.
+     */
+    public Mono<Void> publish(Long userId) {
+        return databaseClient.sql("SELECT pg_notify('" + CHANNEL + "', :payload)")
+                .bind("payload", nodeId + ":" + userId)
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Failed to publish read event for userId: {}: {}", userId, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * userId из события другого узла; null для своих и нераспознанных событий.
+     */
+    public Long remoteUserId(String payload) {
+        int separator = payload != null ? payload.lastIndexOf(':') : -1;
+        if (separator < 0 || payload.startsWith(nodeId + ":")) {
+            return null;
+        }
+        try {
+            return Long.valueOf(payload.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            log.warn("Skipping malformed read event: {}", payload);
+            return null;
+        }
+    }
+}
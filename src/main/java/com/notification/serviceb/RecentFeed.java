@@ -0,0 +1,151 @@
+package com.notification.serviceb;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Неизменяемый срез самых свежих непрочитанных пользователя: уже отформатированные и закодированные
+ * NDJSON-строки плюс минимум метаданных для filter/limit и точечных обновлений.
+ *
+ * <p>Срез всегда является префиксом ленты (created_at DESC, id DESC). Если {@code complete},
+ * в нем все непрочитанные пользователя, и любой filter/limit отвечается без БД.
+ */
+record RecentFeed(List<Entry> entries, boolean complete) {
+
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator
+            .comparing(Entry::createdAt, Comparator.reverseOrder())
+            .thenComparing(Entry::id, Comparator.reverseOrder());
+
+    record Entry(long id, String type, LocalDateTime createdAt, byte[] line) {
+    }
+
+    /**
+     * @param loaded до capacity + 1 строк из БД: лишняя строка означает, что срез неполный
+     */
+    static RecentFeed of(List<Entry> loaded, int capacity) {
+        boolean complete = loaded.size() <= capacity;
+        return new RecentFeed(List.copyOf(complete ? loaded : loaded.subList(0, capacity)), complete);
+    }
+
+    /**
+     * Строки для ответа или null, если срез не гарантирует точный ответ и нужен запрос в БД.
+     */
+    List<byte[]> select(String type, int limit) {
+        List<byte[]> lines = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Entry entry : entries) {
+            if (lines.size() == limit) {
+                break;
+            }
+            if (type == null || type.equals(entry.type)) {
+                lines.add(entry.line);
+            }
+        }
+        return lines.size() == limit || complete ? lines : null;
+    }
+
+    boolean contains(long id) {
+        for (Entry entry : entries) {
+            if (entry.id == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    RecentFeed withInserted(List<Entry> added, int capacity) {
+        List<Entry> merged = new ArrayList<>(entries.size() + added.size());
+        merged.addAll(entries);
+        Entry oldest = entries.isEmpty() ? null : entries.get(entries.size() - 1);
+        for (Entry entry : added) {
+            // Строка старше хвоста неполного среза лежит за его границей
+            boolean beyondSlice = !complete && oldest != null && NEWEST_FIRST.compare(entry, oldest) > 0;
+            if (!beyondSlice && !contains(entry.id)) {
+                merged.add(entry);
+            }
+        }
+        if (merged.size() == entries.size()) {
+            return this;
+        }
+        merged.sort(NEWEST_FIRST);
+        boolean trimmed = merged.size() > capacity;
+        return new RecentFeed(List.copyOf(trimmed ? merged.subList(0, capacity) : merged), complete && !trimmed);
+    }
+
+    RecentFeed withoutIds(Set<Long> ids) {
+        return retain(entry -> !ids.contains(entry.id));
+    }
+
+    RecentFeed withoutUpTo(LocalDateTime createdAt, long id) {
+        Entry watermark = new Entry(id, null, createdAt, null);
+        return retain(entry -> NEWEST_FIRST.compare(entry, watermark) < 0);
+    }
+
+    int weight() {
+        int weight = ENTRY_OVERHEAD;
+        for (Entry entry : entries) {
+            weight += ENTRY_OVERHEAD + entry.line.length;
+        }
+        return weight;
+    }
+
+    // Компактная бинарная форма для второго уровня кэша
+    byte[] serialize() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(weight());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeBoolean(complete);
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeLong(entry.id);
+                out.writeUTF(entry.type);
+                out.writeUTF(entry.createdAt.toString());
+                out.writeInt(entry.line.length);
+                out.write(entry.line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static RecentFeed deserialize(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            boolean complete = in.readBoolean();
+            int size = in.readInt();
+            List<Entry> entries = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                long id = in.readLong();
+                String type = in.readUTF();
+                LocalDateTime createdAt = LocalDateTime.parse(in.readUTF());
+                byte[] line = new byte[in.readInt()];
+                in.readFully(line);
+                entries.add(new Entry(id, type, createdAt, line));
+            }
+            return new RecentFeed(Collections.unmodifiableList(entries), complete);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private RecentFeed retain(Predicate<Entry> keep) {
+        List<Entry> retained = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (keep.test(entry)) {
+                retained.add(entry);
+            }
+        }
+        return retained.size() == entries.size() ? this : new RecentFeed(List.copyOf(retained), complete);
+    }
+}
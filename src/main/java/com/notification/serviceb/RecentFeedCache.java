@@ -0,0 +1,229 @@
+package com.notification.serviceb;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.common.NdjsonNotificationEncoder;
+import com.notification.common.Notification;
+import com.notification.common.NotificationDto;
+import com.notification.common.StreamCursor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Кэш первой страницы ленты: для каждого userId - до {@code capacity} самых свежих непрочитанных
+ * в виде готовых NDJSON-строк ({@link RecentFeed}). Caffeine ограничивает его по байтам
+ * и вытесняет по W-TinyLFU, так что в памяти остаются горячие пользователи.
+ *
+ * <p>Запись и отметка о прочтении правят срез на месте; события о вставках и прочтении с других узлов
+ * (LISTEN/NOTIFY) сбрасывают только срез этого пользователя. Опциональный второй уровень
+ * ({@link FeedSecondTier}) отдает срез узлу с холодным L1 без запроса в БД.
+ */
+@Slf4j
+@Component
+public class RecentFeedCache {
+
+    private static final String SOURCE_REPOSITORY = "repository";
+
+    private final NotificationStreamBuilder streamBuilder;
+    private final NdjsonNotificationEncoder encoder;
+    private final FeedSecondTier secondTier;
+    private final AsyncCache<Long, RecentFeed> feeds;
+    private final boolean enabled;
+    private final int capacity;
+    private final Duration ttl;
+
+    private final Counter hits;
+    private final Counter fallbacks;
+    private final Counter bypassed;
+
+    public RecentFeedCache(NotificationStreamBuilder streamBuilder,
+                           NdjsonNotificationEncoder encoder,
+                           ObjectProvider<FeedSecondTier> secondTier,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.service-b.stream-source:synthetic}") String streamSource,
+                           @Value("${app.service-b.recent-feed-cache.enabled:true}") boolean enabled,
+                           @Value("${app.service-b.recent-feed-cache.capacity:50}") int capacity,
+                           @Value("${app.service-b.recent-feed-cache.max-weight:64MB}") DataSize maxWeight,
+                           @Value("${app.service-b.recent-feed-cache.ttl:2m}") Duration ttl) {
+        this.streamBuilder = streamBuilder;
+        this.encoder = encoder;
+        this.secondTier = secondTier.getIfAvailable();
+        // Синтетический источник и так в памяти - кэшировать нечего
+        this.enabled = enabled && SOURCE_REPOSITORY.equalsIgnoreCase(streamSource);
+        this.capacity = capacity;
+        this.ttl = ttl;
+        this.feeds = Caffeine.newBuilder()
+                .maximumWeight(maxWeight.toBytes())
+                .<Long, RecentFeed>weigher((userId, feed) -> feed.weight())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, feeds.synchronous(), "recent-feed");
+
+        this.hits = requests(meterRegistry, "hit");
+        this.fallbacks = requests(meterRegistry, "fallback");
+        this.bypassed = requests(meterRegistry, "bypassed");
+    }
+
+    /**
+     * Первая страница из среза, если он дает точный ответ; иначе - {@code fallback} (обычный стрим из БД).
+     * Страницы по cursor и limit больше capacity всегда идут мимо кэша.
+     */
+    public Flux<DataBuffer> stream(Long userId, Integer limit, String filter, String cursor,
+                                   DataBufferFactory bufferFactory, Supplier<Flux<DataBuffer>> fallback) {
+        if (!enabled || (cursor != null && !cursor.isEmpty()) || limit == null || limit > capacity) {
+            bypassed.increment();
+            return Flux.defer(fallback);
+        }
+        String type = filter == null || filter.isEmpty() ? null : filter.toUpperCase(Locale.ROOT);
+
+        // suppressCancel: отмена одного запроса не должна отменять общую загрузку среза
+        return Mono.fromFuture(() -> feeds.get(userId, (id, executor) -> load(id).toFuture()), true)
+                .onErrorResume(error -> {
+                    log.warn("Failed to load recent feed for userId: {}: {}", userId, error.getMessage());
+                    return Mono.empty();
+                })
+                .mapNotNull(feed -> feed.select(type, limit))
+                .map(lines -> {
+                    hits.increment();
+                    return Flux.fromIterable(lines).map(bufferFactory::wrap);
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    fallbacks.increment();
+                    return fallback.get();
+                }))
+                .flatMapMany(body -> body);
+    }
+
+    /**
+     * Новые строки (после успешного INSERT) вставляются в закэшированные срезы их пользователей.
+     */
+    public Mono<Void> onInserted(List<Notification> inserted) {
+        if (!enabled || feeds.asMap().isEmpty() && secondTier == null) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(inserted)
+                .filter(notification -> !notification.isRead())
+                .map(notification -> Map.entry(notification.getUserId(),
+                        toEntry(streamBuilder.formatStored(notification))))
+                .collectMultimap(Map.Entry::getKey, Map.Entry::getValue)
+                .flatMapMany(byUser -> Flux.fromIterable(byUser.entrySet()))
+                .concatMap(user -> update(user.getKey(),
+                        feed -> feed.withInserted(List.copyOf(user.getValue()), capacity)))
+                .then();
+    }
+
+    public Mono<Void> onMarkedRead(Long userId, Set<Long> ids) {
+        return update(userId, feed -> feed.withoutIds(ids));
+    }
+
+    public Mono<Void> onMarkedReadUpTo(Long userId, LocalDateTime createdAt, Long id) {
+        return update(userId, feed -> feed.withoutUpTo(createdAt, id));
+    }
+
+    /**
+     * Вставка, замеченная через LISTEN/NOTIFY: своя (уже в срезе) пропускается,
+     * чужая сбрасывает срез пользователя - payload события не несет точный created_at.
+     */
+    public Mono<Void> onRemoteInsert(Long userId, Long id) {
+        return update(userId, feed -> id != null && feed.contains(id) ? feed : null);
+    }
+
+    /**
+     * Прочтение на другом узле (read_events): тот узел уже сбросил второй уровень, здесь - только L1.
+     */
+    public void onRemoteRead(Long userId) {
+        if (enabled) {
+            feeds.synchronous().invalidate(userId);
+        }
+    }
+
+    /**
+     * Новая или снятая рассылка меняет ленту каждого пользователя - точечно не обновить.
+     * Второй уровень общий для узлов и доживает до своего ttl.
+     */
+    @EventListener(BroadcastSnapshot.BroadcastsChangedEvent.class)
+    public void onBroadcastsChanged() {
+        feeds.synchronous().invalidateAll();
+    }
+
+    public Mono<Void> invalidate(Long userId) {
+        return update(userId, feed -> null);
+    }
+
+    private Mono<RecentFeed> load(Long userId) {
+        Mono<RecentFeed> fromDatabase = streamBuilder.buildPersistentNotificationStream(userId, capacity + 1, null, null)
+                .map(this::toEntry)
+                .collectList()
+                .map(entries -> RecentFeed.of(entries, capacity))
+                .flatMap(feed -> secondTier == null
+                        ? Mono.just(feed)
+                        : secondTier.put(userId, feed.serialize(), ttl).thenReturn(feed));
+
+        if (secondTier == null) {
+            return fromDatabase;
+        }
+        return secondTier.get(userId)
+                .map(RecentFeed::deserialize)
+                .switchIfEmpty(fromDatabase);
+    }
+
+    private RecentFeed.Entry toEntry(NotificationDto formatted) {
+        // createdAt в DTO уже нормализован форматированием; исходный - в cursor
+        StreamCursor position = StreamCursor.decode(formatted.cursor());
+        return new RecentFeed.Entry(position.id(), formatted.type(), position.createdAt(),
+                encoder.encodeLine(formatted));
+    }
+
+    /**
+     * Точечное изменение среза; null из change или незавершенная загрузка удаляют срез,
+     * и следующий запрос перечитает его из БД. Второй уровень для пользователя сбрасывается.
+     */
+    private Mono<Void> update(Long userId, UnaryOperator<RecentFeed> change) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> {
+            feeds.asMap().computeIfPresent(userId, (id, future) -> {
+                if (!future.isDone() || future.isCompletedExceptionally()) {
+                    return null;
+                }
+                RecentFeed updated = change.apply(future.join());
+                // Неполный срез, сильно похудевший после прочтения, дешевле перечитать целиком
+                if (updated == null || !updated.complete() && updated.entries().size() < capacity / 2) {
+                    return null;
+                }
+                return CompletableFuture.completedFuture(updated);
+            });
+            return secondTier == null ? Mono.empty() : secondTier.delete(userId);
+        });
+    }
+
+    private Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("recent.feed.requests")
+                .description("First-page stream requests by recent feed cache outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,54 @@
+package com.notification.serviceb;
+
+import com.notification.common.NotificationDto;
+import com.notification.common.NotificationType;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+/**
+ * Сгенерированный источник: до {@code maxSize} уведомлений, каждое следующее на час старше.
+ */
+public class SyntheticNotificationSource implements NotificationSource {
+
+    private final String type;
+    private final String label;
+    // Заголовок сразу с префиксом типа - форматированию не нужно его пересобирать
+    private final String titleBase;
+    private final long idOffset;
+    private final int hoursOffset;
+    private final int maxSize;
+
+    public SyntheticNotificationSource(String type, String label, long idOffset, int hoursOffset, int maxSize) {
+        this.type = NotificationType.canonical(type);
+        this.label = label;
+        NotificationType known = NotificationType.of(type);
+        this.titleBase = (known != null ? known.titlePrefix() : "") + label + " Notification ";
+        this.idOffset = idOffset;
+        this.hoursOffset = hoursOffset;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public String type() {
+        return type;
+    }
+
+    @Override
+    public Flux<NotificationDto> stream(Long userId, int limit) {
+        return Flux.defer(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            return Flux.range(0, Math.min(limit, maxSize))
+                    .map(i -> NotificationDto.builder()
+                            .id(idOffset + i)
+                            .userId(userId)
+                            .type(type)
+                            .title(titleBase + (i + 1))
+                            .message(label + " message " + (i + 1))
+                            .source(type)
+                            .read(false)
+                            .createdAt(now.minusHours(hoursOffset + i))
+                            .build());
+        });
+    }
+}
@@ -0,0 +1,158 @@
+package com.notification.serviceb;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.common.Notification;
+import com.notification.common.NotificationStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Кэш счетчиков непрочитанных по userId (размер + TTL).
+ * Запись и отметка о прочтении правят закэшированное значение на месте, а не сбрасывают его;
+ * вставки других узлов приходят через LISTEN/NOTIFY и сбрасывают счетчик пользователя.
+ */
+@Slf4j
+@Component
+public class UnreadCountCache {
+
+    // Версии изменений по полосам userId: загрузка из БД кладется в кэш, только если за время
+    // запроса по ее полосе не было increment/invalidate (иначе значение могло устареть).
+    // Запись загруженного значения тоже меняет версию: оно могло уже включать строки вставки,
+    // для которой onInserted еще не вызван
+    private static final int STRIPES = 1024;
+
+    private static final Duration LOCAL_INSERT_TTL = Duration.ofMinutes(1);
+
+    private final NotificationStore notificationStore;
+    private final Cache<Long, Long> counts;
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    // id строк, уже учтенных этим узлом: их NOTIFY не сбрасывает счетчик
+    private final Cache<Long, Boolean> localInserts;
+
+    public UnreadCountCache(NotificationStore notificationStore,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.service-b.unread-count-cache.max-size:100000}") long maxSize,
+                            @Value("${app.service-b.unread-count-cache.ttl:5m}") Duration ttl) {
+        this.notificationStore = notificationStore;
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.localInserts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(LOCAL_INSERT_TTL)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, counts, "unread-count");
+    }
+
+    public Mono<Long> getUnreadCount(Long userId) {
+        Long cached = counts.getIfPresent(userId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        return Mono.defer(() -> {
+            int stripe = stripe(userId);
+            long version = versions.get(stripe);
+            return notificationStore.countUnreadByUserId(userId)
+                    // Проверка и запись под блокировкой ключа: increment после нее применится к этому значению
+                    .doOnNext(count -> counts.asMap().compute(userId, (id, current) -> {
+                        if (current != null || versions.get(stripe) != version) {
+                            return current;
+                        }
+                        versions.incrementAndGet(stripe);
+                        return count;
+                    }));
+        });
+    }
+
+    /**
+     * Версии полос пользователей пачки; снимаются до INSERT и передаются в {@link #onInserted}.
+     */
+    public Map<Long, Long> versionsOf(Collection<Long> userIds) {
+        Map<Long, Long> snapshot = new HashMap<>();
+        for (Long userId : userIds) {
+            snapshot.putIfAbsent(userId, versions.get(stripe(userId)));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Строки, записанные этим узлом. Полоса пользователя захватывается CAS от версии
+     * {@code versionsBefore}: удалось - с INSERT полосу никто не менял, загрузки в полете
+     * свое значение уже не запишут, и счетчик увеличивается на месте. Не удалось (собственный
+     * NOTIFY пришел раньше и значение перечитано, или загрузка завершилась после коммита) -
+     * закэшированное значение могло уже учесть эти строки, и счетчик сбрасывается.
+     * id строк запоминаются, чтобы их NOTIFY не сбросил счетчик в {@link #onRemoteInsert}.
+     */
+    public void onInserted(List<Notification> inserted, Map<Long, Long> versionsBefore) {
+        Map<Long, Long> unreadByUser = new HashMap<>();
+        for (Notification notification : inserted) {
+            if (!notification.isRead()) {
+                localInserts.put(notification.getId(), Boolean.TRUE);
+                unreadByUser.merge(notification.getUserId(), 1L, Long::sum);
+            }
+        }
+
+        Map<Integer, Long> claimed = new HashMap<>();
+        unreadByUser.forEach((userId, delta) -> {
+            int stripe = stripe(userId);
+            Long before = versionsBefore.get(userId);
+            Long version = claimed.computeIfAbsent(stripe, s ->
+                    before != null && versions.compareAndSet(s, before, before + 1) ? before + 1 : -1L);
+            if (version < 0) {
+                invalidate(userId);
+                return;
+            }
+            Long updated = counts.asMap().computeIfPresent(userId, (id, count) ->
+                    versions.get(stripe) == version ? Math.max(0, count + delta) : null);
+            if (updated == null) {
+                // Отсутствующий ключ не создаем; значение, записанное после захвата, сбрасываем
+                invalidate(userId);
+            }
+        });
+    }
+
+    /**
+     * Вставка, замеченная через LISTEN/NOTIFY. Своя уже учтена; чужую точечно не учесть
+     * (неизвестно, попала ли она в загруженное значение), поэтому счетчик сбрасывается.
+     */
+    public void onRemoteInsert(Long userId, Long id, boolean read) {
+        if (read || id != null && localInserts.asMap().remove(id) != null) {
+            return;
+        }
+        invalidate(userId);
+    }
+
+    public void increment(Long userId, long delta) {
+        versions.incrementAndGet(stripe(userId));
+        // Отсутствующий ключ не создаем: следующий запрос прочитает точное значение из БД
+        counts.asMap().computeIfPresent(userId, (id, count) -> Math.max(0, count + delta));
+    }
+
+    public void decrement(Long userId, long delta) {
+        increment(userId, -delta);
+    }
+
+    public void invalidate(Long userId) {
+        versions.incrementAndGet(stripe(userId));
+        counts.invalidate(userId);
+    }
+
+    private static int stripe(Long userId) {
+        return Long.hashCode(userId) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,21 @@
+-- Публикует каждую новую строку в канал notification_events для live-подписок (LISTEN/NOTIFY).
+-- Лимит payload в Postgres - 8000 байт, поэтому message обрезается.
+CREATE OR REPLACE FUNCTION notify_notification_insert() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('notification_events', json_build_object(
+        'id', NEW.id,
+        'userId', NEW.user_id,
+        'type', NEW.type,
+        'title', NEW.title,
+        'message', left(NEW.message, 4000),
+        'source', NEW.source,
+        'read', COALESCE(NEW.read, false),
+        'createdAt', to_char(NEW.created_at, 'YYYY-MM-DD HH24:MI:SS')
+    )::text);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_notifications_notify
+    AFTER INSERT ON notifications
+    FOR EACH ROW EXECUTE FUNCTION notify_notification_insert();
@@ -0,0 +1,122 @@
+-- Помесячное RANGE-партиционирование notifications по created_at + индексы под горячий запрос
+-- (непрочитанные пользователя, created_at DESC, id DESC, опционально type).
+-- Существующие строки переносятся одним INSERT ... SELECT; на очень больших таблицах
+-- эту миграцию стоит выполнять в окно обслуживания.
+
+ALTER TABLE notifications RENAME TO notifications_legacy;
+ALTER TABLE notifications_legacy RENAME CONSTRAINT notifications_pkey TO notifications_legacy_pkey;
+DROP TRIGGER IF EXISTS trg_notifications_notify ON notifications_legacy;
+DROP INDEX IF EXISTS idx_user_id;
+DROP INDEX IF EXISTS idx_user_id_read;
+DROP INDEX IF EXISTS idx_created_at;
+
+-- Ключ партиционирования обязан входить в PK, поэтому (id, created_at); id по-прежнему из той же sequence
+CREATE TABLE notifications (
+    id BIGINT NOT NULL DEFAULT nextval('notifications_id_seq'),
+    user_id BIGINT NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    message TEXT,
+    source VARCHAR(50),
+    read BOOLEAN NOT NULL DEFAULT false,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    read_at TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE notifications_id_seq OWNED BY notifications.id;
+
+-- Страховка для дат вне созданных партиций (например, ingestion с произвольным createdAt)
+CREATE TABLE notifications_default PARTITION OF notifications DEFAULT;
+
+-- Непрочитанные пользователя в порядке ленты: фильтр и сортировка из одного индекса
+CREATE INDEX idx_notifications_unread_feed
+    ON notifications (user_id, created_at DESC, id DESC)
+    WHERE read = false;
+
+-- Вариант с type для filter; message не включен, чтобы не упираться в лимит размера строки btree
+CREATE INDEX idx_notifications_unread_type_feed
+    ON notifications (user_id, type, created_at DESC, id DESC)
+    INCLUDE (title, source, read_at)
+    WHERE read = false;
+
+-- Отметка о прочтении по ids и общий счетчик
+CREATE INDEX idx_notifications_user_read ON notifications (user_id, read);
+
+-- Партиция notifications_pYYYYMM для месяца, содержащего month_start.
+-- Строки этого месяца, успевшие попасть в default-партицию, переносятся в новую.
+CREATE OR REPLACE FUNCTION create_notification_partition(month_start DATE) RETURNS void AS $$
+DECLARE
+    range_start DATE := date_trunc('month', month_start)::date;
+    range_end DATE := (date_trunc('month', month_start) + INTERVAL '1 month')::date;
+    partition_name TEXT := 'notifications_p' || to_char(range_start, 'YYYYMM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    CREATE TEMP TABLE IF NOT EXISTS notifications_partition_move (LIKE notifications) ON COMMIT DROP;
+    WITH moved AS (
+        DELETE FROM notifications_default
+        WHERE created_at >= range_start AND created_at < range_end
+        RETURNING *
+    )
+    INSERT INTO notifications_partition_move SELECT * FROM moved;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, range_start, range_end);
+
+    INSERT INTO notifications SELECT * FROM notifications_partition_move;
+    TRUNCATE notifications_partition_move;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Партиции от from_month до текущего месяца + months_ahead включительно
+CREATE OR REPLACE FUNCTION create_notification_partitions(from_month DATE, months_ahead INT) RETURNS void AS $$
+DECLARE
+    current_month DATE := date_trunc('month', from_month)::date;
+    last_month DATE := (date_trunc('month', CURRENT_DATE) + make_interval(months => months_ahead))::date;
+BEGIN
+    WHILE current_month <= last_month LOOP
+        PERFORM create_notification_partition(current_month);
+        current_month := (current_month + INTERVAL '1 month')::date;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Retention: DROP целых партиций, целиком лежащих раньше cutoff, вместо DELETE. Возвращает число партиций.
+CREATE OR REPLACE FUNCTION drop_notification_partitions_before(cutoff DATE) RETURNS INT AS $$
+DECLARE
+    child_partition RECORD;
+    dropped INT := 0;
+BEGIN
+    FOR child_partition IN
+        SELECT child.relname
+        FROM pg_inherits
+        JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+        JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+        WHERE parent.relname = 'notifications'
+          AND child.relname ~ '^notifications_p[0-9]{6}$'
+    LOOP
+        IF (to_date(substr(child_partition.relname, 16), 'YYYYMM') + INTERVAL '1 month') <= cutoff THEN
+            EXECUTE format('DROP TABLE %I', child_partition.relname);
+            dropped := dropped + 1;
+        END IF;
+    END LOOP;
+    RETURN dropped;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT create_notification_partitions(
+    COALESCE((SELECT min(created_at)::date FROM notifications_legacy), CURRENT_DATE), 3);
+
+INSERT INTO notifications (id, user_id, type, title, message, source, read, created_at, read_at)
+SELECT id, user_id, type, title, message, source,
+       COALESCE(read, false), COALESCE(created_at, CURRENT_TIMESTAMP), read_at
+FROM notifications_legacy;
+
+DROP TABLE notifications_legacy;
+
+CREATE TRIGGER trg_notifications_notify
+    AFTER INSERT ON notifications
+    FOR EACH ROW EXECUTE FUNCTION notify_notification_insert();
@@ -0,0 +1,34 @@
+-- Широковещательные уведомления (SYSTEM для всех пользователей) хранятся одной строкой
+-- и подмешиваются в ленту при чтении вместо строки на каждого пользователя.
+-- id берется из той же sequence, что и notifications: курсор (created_at, id) однозначен в общей ленте.
+CREATE TABLE broadcast_notifications (
+    id BIGINT PRIMARY KEY DEFAULT nextval('notifications_id_seq'),
+    type VARCHAR(50) NOT NULL DEFAULT 'SYSTEM',
+    title VARCHAR(255) NOT NULL,
+    message TEXT,
+    source VARCHAR(50),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP
+);
+
+CREATE INDEX idx_broadcast_feed ON broadcast_notifications (created_at DESC, id DESC);
+
+-- Все широковещательные до (created_at, id) включительно пользователь уже прочитал
+CREATE TABLE broadcast_read_watermarks (
+    user_id BIGINT PRIMARY KEY,
+    read_up_to_created_at TIMESTAMP NOT NULL,
+    read_up_to_id BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Любое изменение набора рассылок - сигнал узлам перечитать in-memory снимок
+CREATE OR REPLACE FUNCTION notify_broadcast_change() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('broadcast_events', TG_OP);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_broadcast_notifications_notify
+    AFTER INSERT OR UPDATE OR DELETE ON broadcast_notifications
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_broadcast_change();
@@ -0,0 +1,15 @@
+-- Идемпотентная запись: продюсер может передать dedup_key, повтор с тем же ключом не создает строку.
+-- На партиционированной notifications уникальный индекс обязан включать created_at, а при повторе
+-- с серверным createdAt он отличается - поэтому уникальность держит отдельная непартиционированная
+-- таблица ключей, а сам ключ в notifications хранится для диагностики.
+ALTER TABLE notifications ADD COLUMN dedup_key VARCHAR(128);
+
+CREATE TABLE notification_dedup_keys (
+    user_id BIGINT NOT NULL,
+    dedup_key VARCHAR(128) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, dedup_key)
+);
+
+-- Под удаление ключей старше окна хранения
+CREATE INDEX idx_notification_dedup_keys_created_at ON notification_dedup_keys (created_at);
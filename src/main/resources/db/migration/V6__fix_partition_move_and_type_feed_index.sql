@@ -0,0 +1,58 @@
+-- INCLUDE (title, source, read_at) в idx_notifications_unread_type_feed не давал index-only scan:
+-- лента читает SELECT * (с message), а сводке хватает ключевых колонок. Индекс без INCLUDE меньше
+-- и дешевле на каждой вставке непрочитанного.
+DROP INDEX IF EXISTS idx_notifications_unread_type_feed;
+
+CREATE INDEX idx_notifications_unread_type_feed
+    ON notifications (user_id, type, created_at DESC, id DESC)
+    WHERE read = false;
+
+-- Перенос строк из default-партиции - не новые уведомления: NOTIFY-триггер их пропускает.
+-- Флаг транзакционный и виден только этой сессии, вставки других сессий публикуются как обычно
+-- (session_replication_role требует суперпользователя, DISABLE TRIGGER выключил бы триггер всем).
+CREATE OR REPLACE FUNCTION notify_notification_insert() RETURNS trigger AS $$
+BEGIN
+    IF current_setting('notifications.partition_move', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+    PERFORM pg_notify('notification_events', json_build_object(
+        'id', NEW.id,
+        'userId', NEW.user_id,
+        'type', NEW.type,
+        'title', NEW.title,
+        'message', left(NEW.message, 4000),
+        'source', NEW.source,
+        'read', COALESCE(NEW.read, false),
+        'createdAt', to_char(NEW.created_at, 'YYYY-MM-DD HH24:MI:SS')
+    )::text);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION create_notification_partition(month_start DATE) RETURNS void AS $$
+DECLARE
+    range_start DATE := date_trunc('month', month_start)::date;
+    range_end DATE := (date_trunc('month', month_start) + INTERVAL '1 month')::date;
+    partition_name TEXT := 'notifications_p' || to_char(range_start, 'YYYYMM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    CREATE TEMP TABLE IF NOT EXISTS notifications_partition_move (LIKE notifications) ON COMMIT DROP;
+    WITH moved AS (
+        DELETE FROM notifications_default
+        WHERE created_at >= range_start AND created_at < range_end
+        RETURNING *
+    )
+    INSERT INTO notifications_partition_move SELECT * FROM moved;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, range_start, range_end);
+
+    PERFORM set_config('notifications.partition_move', 'on', true);
+    INSERT INTO notifications SELECT * FROM notifications_partition_move;
+    PERFORM set_config('notifications.partition_move', 'off', true);
+    TRUNCATE notifications_partition_move;
+END;
+$$ LANGUAGE plpgsql;
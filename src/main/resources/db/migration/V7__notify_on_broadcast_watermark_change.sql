@@ -0,0 +1,13 @@
+-- Сдвиг watermark - сигнал остальным узлам сбросить закэшированный watermark пользователя.
+-- Тот же канал, что у снимка рассылок: payload "WATERMARK:<userId>" отличает событие от TG_OP.
+-- Upsert, не сдвинувший watermark, строк не меняет и триггер не вызывает.
+CREATE OR REPLACE FUNCTION notify_broadcast_watermark_change() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('broadcast_events', 'WATERMARK:' || NEW.user_id);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_broadcast_read_watermarks_notify
+    AFTER INSERT OR UPDATE ON broadcast_read_watermarks
+    FOR EACH ROW EXECUTE FUNCTION notify_broadcast_watermark_change();
@@ -0,0 +1,111 @@
+package com.notification.common;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Запрос сверх лимита отклоняется до подписки на стрим и превращается в 429 с Retry-After.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new AdaptiveConcurrencyLimiter("test", AdaptiveConcurrencyLimiter.Settings.builder()
+                .initialLimit(2)
+                .minLimit(1)
+                .maxLimit(2)
+                .maxPerUser(1)
+                .tolerance(2.0)
+                .smoothing(0.2)
+                .backoffRatio(0.9)
+                .longWindow(600)
+                .retryAfter(Duration.ofSeconds(3))
+                .build(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void rejectsSecondStreamOfSameUserUntilFirstIsReleased() {
+        Disposable first = limiter.limit(1L, Flux::never).subscribe();
+
+        StepVerifier.create(limiter.limit(1L, () -> Flux.just("rejected")))
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOf(ConcurrencyLimitExceededException.class)
+                        .hasMessageContaining("userId 1"))
+                .verify();
+
+        first.dispose();
+        StepVerifier.create(limiter.limit(1L, () -> Flux.just("accepted")))
+                .expectNext("accepted")
+                .verifyComplete();
+    }
+
+    @Test
+    void rejectsStreamsOverGlobalLimit() {
+        Disposable first = limiter.limit(1L, Flux::never).subscribe();
+        Disposable second = limiter.limit(2L, Flux::never).subscribe();
+
+        StepVerifier.create(limiter.limit(3L, () -> Flux.just("rejected")))
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOf(ConcurrencyLimitExceededException.class)
+                        .hasMessageContaining("concurrency limit 2"))
+                .verify();
+
+        first.dispose();
+        second.dispose();
+    }
+
+    @Test
+    void rejectedStreamIsAnsweredWith429AndRetryAfter() {
+        Disposable held = limiter.limit(1L, Flux::never).subscribe();
+        WebTestClient client = WebTestClient.bindToController(new LimitedController(limiter))
+                .controllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        client.get().uri("/limited?userId=1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "3")
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(429)
+                .jsonPath("$.path").isEqualTo("/limited");
+
+        held.dispose();
+        client.get().uri("/limited?userId=1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @RestController
+    static class LimitedController {
+
+        private final AdaptiveConcurrencyLimiter limiter;
+
+        LimitedController(AdaptiveConcurrencyLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        @GetMapping(value = "/limited", produces = MediaType.APPLICATION_NDJSON_VALUE)
+        Flux<String> limited(@RequestParam Long userId) {
+            return limiter.limit(userId, () -> Flux.just("ok"));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.notification.serviceb;
+
+import com.notification.common.Notification;
+import com.notification.common.NotificationDto;
+import com.notification.common.NotificationStore;
+import com.notification.common.StreamCursor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Непрочитанные рассылки по watermark пользователя и их слияние с личной лентой.
+ */
+class BroadcastSnapshotTest {
+
+    private static final Long USER_ID = 7L;
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 15, 10, 30);
+
+    // Снимок newest first: ALERT посередине
+    private static final Notification NEWEST = broadcast(105L, "SYSTEM", 5);
+    private static final Notification MIDDLE = broadcast(103L, "ALERT", 3);
+    private static final Notification OLDEST = broadcast(102L, "SYSTEM", 2);
+
+    private BroadcastStore broadcastStore;
+    private BroadcastSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        broadcastStore = mock(BroadcastStore.class);
+        when(broadcastStore.findActive(any(), any(), anyInt())).thenReturn(Flux.just(NEWEST, MIDDLE, OLDEST));
+        when(broadcastStore.findWatermark(USER_ID)).thenReturn(Mono.empty());
+        when(broadcastStore.advanceWatermark(eq(USER_ID), any())).thenReturn(Mono.just(true));
+        snapshot = new BroadcastSnapshot(broadcastStore, mock(ApplicationEventPublisher.class),
+                new SimpleMeterRegistry(), 1_000, Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(snapshot, "streamSource", "repository");
+        ReflectionTestUtils.setField(snapshot, "snapshotSize", 1_000);
+        ReflectionTestUtils.setField(snapshot, "maxAge", Duration.ofDays(30));
+        snapshot.refresh().block();
+    }
+
+    @Test
+    void returnsOnlyBroadcastsNewerThanWatermark() {
+        when(broadcastStore.findWatermark(USER_ID)).thenReturn(Mono.just(StreamCursor.of(OLDEST)));
+
+        StepVerifier.create(snapshot.unreadFor(USER_ID, null, null))
+                .assertNext(unread -> {
+                    assertThat(unread).extracting(Notification::getId).containsExactly(105L, 103L);
+                    assertThat(unread).extracting(Notification::getUserId).containsOnly(USER_ID);
+                })
+                .verifyComplete();
+        StepVerifier.create(snapshot.unreadFor(USER_ID, "ALERT", null))
+                .assertNext(unread -> assertThat(unread).extracting(Notification::getId).containsExactly(103L))
+                .verifyComplete();
+        StepVerifier.create(snapshot.unreadFor(USER_ID, null, StreamCursor.of(NEWEST)))
+                .assertNext(unread -> assertThat(unread).extracting(Notification::getId).containsExactly(103L))
+                .verifyComplete();
+    }
+
+    @Test
+    void markReadByIdsAdvancesWatermarkToNewestGivenBroadcast() {
+        StepVerifier.create(snapshot.markReadIds(USER_ID, List.of(103L, 999L)))
+                .expectNext(2L)
+                .verifyComplete();
+
+        verify(broadcastStore).advanceWatermark(USER_ID, StreamCursor.of(MIDDLE));
+        // Кэш watermark сброшен: следующий запрос читает уже сдвинутый
+        when(broadcastStore.findWatermark(USER_ID)).thenReturn(Mono.just(StreamCursor.of(MIDDLE)));
+        StepVerifier.create(snapshot.countUnread(USER_ID))
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+    @Test
+    void watermarkEventFromAnotherNodeDropsCachedWatermark() {
+        StepVerifier.create(snapshot.countUnread(USER_ID)).expectNext(3L).verifyComplete();
+        // Другой узел сдвинул watermark; до события этот узел отвечает из кэша
+        when(broadcastStore.findWatermark(USER_ID)).thenReturn(Mono.just(StreamCursor.of(NEWEST)));
+        StepVerifier.create(snapshot.countUnread(USER_ID)).expectNext(3L).verifyComplete();
+
+        snapshot.onEvent("WATERMARK:" + USER_ID).block();
+
+        StepVerifier.create(snapshot.countUnread(USER_ID)).expectNext(0L).verifyComplete();
+        // Событие о watermark не перечитывает снимок, событие об изменении рассылок - перечитывает
+        verify(broadcastStore, times(1)).findActive(any(), any(), anyInt());
+        snapshot.onEvent("INSERT").block();
+        verify(broadcastStore, times(2)).findActive(any(), any(), anyInt());
+    }
+
+    @Test
+    void mergesUnreadBroadcastsIntoPersonalFeedInOrder() {
+        when(broadcastStore.findWatermark(USER_ID)).thenReturn(Mono.just(StreamCursor.of(OLDEST)));
+        NotificationStore store = mock(NotificationStore.class);
+        when(store.findUnreadFirstPage(eq(USER_ID), anyInt()))
+                .thenReturn(Flux.just(personal(104L, 4), personal(101L, 1)));
+        NotificationStreamBuilder builder = new NotificationStreamBuilder(store, List.of(),
+                new NotificationSinkRegistry(), new SimpleMeterRegistry(), snapshot);
+        ReflectionTestUtils.setField(builder, "streamSource", "repository");
+        ReflectionTestUtils.setField(builder, "keysetPageSize", 10);
+
+        // Рассылка на watermark (102) уже прочитана
+        StepVerifier.create(builder.buildNotificationStream(USER_ID, null, null).map(NotificationDto::id))
+                .expectNext(105L, 104L, 103L, 101L)
+                .verifyComplete();
+    }
+
+    private static Notification broadcast(Long id, String type, int minutes) {
+        return Notification.builder()
+                .id(id)
+                .type(type)
+                .title("Broadcast")
+                .createdAt(CREATED_AT.plusMinutes(minutes))
+                .build();
+    }
+
+    private static Notification personal(Long id, int minutes) {
+        return Notification.builder()
+                .id(id)
+                .userId(USER_ID)
+                .type("SYSTEM")
+                .title("System Notification")
+                .createdAt(CREATED_AT.plusMinutes(minutes))
+                .build();
+    }
+}
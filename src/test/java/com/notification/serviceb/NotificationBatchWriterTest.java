@@ -0,0 +1,158 @@
+package com.notification.serviceb;
+
+import com.notification.common.BatchResult;
+import com.notification.common.Notification;
+import com.notification.common.NotificationDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Readable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Дедупликация до БД и сопоставление RETURNING со строками пачки по ord. SQL пишется под Postgres
+ * (data-modifying CTE), поэтому DatabaseClient подменен: он отдает (ord, id) в заданном тестом порядке.
+ */
+class NotificationBatchWriterTest {
+
+    private final List<String> statements = new ArrayList<>();
+
+    // Строки, которые "БД" вернет на следующий INSERT: ord -> id, в порядке RETURNING
+    private Map<Integer, Long> returned = Map.of();
+
+    private RecentFeedCache recentFeedCache;
+    private DedupWindow dedupWindow;
+    private NotificationBatchWriter writer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        DatabaseClient databaseClient = mock(DatabaseClient.class);
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class, RETURNS_SELF);
+        when(databaseClient.sql(anyString())).thenAnswer(invocation -> {
+            statements.add(invocation.getArgument(0));
+            return spec;
+        });
+        when(spec.map(any(Function.class))).thenAnswer(invocation -> {
+            Function<Readable, Notification> mapper = invocation.getArgument(0);
+            RowsFetchSpec<Notification> fetch = mock(RowsFetchSpec.class);
+            when(fetch.all()).thenReturn(Flux.fromIterable(returned.entrySet()).map(entry -> mapper.apply(row(entry))));
+            return fetch;
+        });
+
+        UnreadCountCache unreadCountCache = mock(UnreadCountCache.class);
+        when(unreadCountCache.versionsOf(anyCollection())).thenReturn(Map.of());
+        recentFeedCache = mock(RecentFeedCache.class);
+        when(recentFeedCache.onInserted(anyList())).thenReturn(Mono.empty());
+        dedupWindow = new DedupWindow(new SimpleMeterRegistry(), true, 1_000, Duration.ofMinutes(10));
+        writer = new NotificationBatchWriter(databaseClient, unreadCountCache, recentFeedCache, dedupWindow);
+    }
+
+    @Test
+    void suppressesKnownAndInBatchDuplicatesBeforeInsert() {
+        dedupWindow.remember(1L, "k2");
+        // После фильтрации в INSERT идут a (ord 0), d (ord 1), e (ord 2); e уже занят в БД
+        returned = ordered(0, 10L, 1, 11L);
+
+        StepVerifier.create(writer.write(1, List.of(
+                        keyed(1L, "a", "k1"),
+                        keyed(1L, "b", "k1"),
+                        keyed(1L, "c", "k2"),
+                        keyed(1L, "d", null),
+                        keyed(2L, "e", "k1"))))
+                .assertNext(result -> {
+                    assertThat(result.getAccepted()).isEqualTo(2);
+                    assertThat(result.getDuplicates()).isEqualTo(3);
+                    assertThat(result.getFailed()).isZero();
+                })
+                .verifyComplete();
+
+        assertThat(statements).hasSize(1);
+        assertThat(statements.get(0)).contains("notification_dedup_keys").contains("$24::varchar,2)");
+    }
+
+    @Test
+    void repeatedKeyIsSuppressedByWindowAfterSuccessfulWrite() {
+        returned = ordered(0, 10L);
+        StepVerifier.create(writer.write(1, List.of(keyed(1L, "a", "k1"))).map(BatchResult::getAccepted))
+                .expectNext(1)
+                .verifyComplete();
+
+        StepVerifier.create(writer.write(2, List.of(keyed(1L, "a", "k1"))))
+                .assertNext(result -> {
+                    assertThat(result.getAccepted()).isZero();
+                    assertThat(result.getDuplicates()).isEqualTo(1);
+                })
+                .verifyComplete();
+        assertThat(statements).hasSize(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void matchesReturnedIdsToRowsByOrdNotByReturningOrder() {
+        // RETURNING multi-row INSERT не упорядочен: строки приходят в обратном порядке
+        returned = ordered(2, 32L, 1, 31L, 0, 30L);
+
+        StepVerifier.create(writer.write(1, List.of(keyed(1L, "a", null), keyed(2L, "b", null), keyed(3L, "c", null)))
+                        .map(BatchResult::getAccepted))
+                .expectNext(3)
+                .verifyComplete();
+
+        ArgumentCaptor<List<Notification>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(recentFeedCache, times(1)).onInserted(inserted.capture());
+        assertThat(inserted.getValue().stream().collect(Collectors.toMap(Notification::getTitle, Notification::getId)))
+                .containsEntry("a", 30L)
+                .containsEntry("b", 31L)
+                .containsEntry("c", 32L);
+        assertThat(inserted.getValue()).extracting(Notification::getUserId).containsExactly(3L, 2L, 1L);
+        assertThat(statements.get(0)).doesNotContain("notification_dedup_keys");
+    }
+
+    private static Map<Integer, Long> ordered(Object... ordsAndIds) {
+        Map<Integer, Long> rows = new LinkedHashMap<>();
+        for (int i = 0; i < ordsAndIds.length; i += 2) {
+            rows.put((Integer) ordsAndIds[i], (Long) ordsAndIds[i + 1]);
+        }
+        return rows;
+    }
+
+    private static Readable row(Map.Entry<Integer, Long> ordAndId) {
+        Readable row = mock(Readable.class);
+        when(row.get("ord", Integer.class)).thenReturn(ordAndId.getKey());
+        when(row.get("id", Long.class)).thenReturn(ordAndId.getValue());
+        return row;
+    }
+
+    private static NotificationDto keyed(Long userId, String title, String dedupKey) {
+        return NotificationDto.builder()
+                .userId(userId)
+                .type("SYSTEM")
+                .title(title)
+                .dedupKey(dedupKey)
+                .build();
+    }
+}
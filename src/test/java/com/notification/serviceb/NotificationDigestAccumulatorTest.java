@@ -0,0 +1,61 @@
+package com.notification.serviceb;
+
+import com.notification.common.NotificationDigest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationDigestAccumulatorTest {
+
+    private static final long HOUR = 3600;
+    private static final LocalDateTime BUCKET = LocalDateTime.of(2024, 1, 15, 10, 0);
+
+    @Test
+    void groupsRowsByTypeWithinBucket() {
+        NotificationDigestAccumulator accumulator = new NotificationDigestAccumulator(HOUR);
+
+        assertThat(accumulator.add("SYSTEM", "newest", BUCKET.plusMinutes(50))).isEmpty();
+        assertThat(accumulator.add("ALERT", "alert", BUCKET.plusMinutes(40))).isEmpty();
+        assertThat(accumulator.add("SYSTEM", "older", BUCKET.plusMinutes(10))).isEmpty();
+
+        assertThat(accumulator.flush()).containsExactly(
+                digest("SYSTEM", BUCKET, 2, "newest", BUCKET.plusMinutes(10), BUCKET.plusMinutes(50)),
+                digest("ALERT", BUCKET, 1, "alert", BUCKET.plusMinutes(40), BUCKET.plusMinutes(40)));
+        assertThat(accumulator.flush()).isEmpty();
+    }
+
+    @Test
+    void emitsGroupsOfBucketWhenOlderBucketStarts() {
+        NotificationDigestAccumulator accumulator = new NotificationDigestAccumulator(HOUR);
+        List<NotificationDigest> emitted = new ArrayList<>();
+
+        emitted.addAll(accumulator.add("SYSTEM", "a", BUCKET.plusMinutes(30)));
+        emitted.addAll(accumulator.add("SYSTEM", "b", BUCKET.plusMinutes(5)));
+        assertThat(emitted).isEmpty();
+
+        // Строка из предыдущего окна закрывает текущее
+        emitted.addAll(accumulator.add("SYSTEM", "c", BUCKET.minusMinutes(1)));
+        assertThat(emitted).containsExactly(
+                digest("SYSTEM", BUCKET, 2, "a", BUCKET.plusMinutes(5), BUCKET.plusMinutes(30)));
+        assertThat(accumulator.flush()).containsExactly(
+                digest("SYSTEM", BUCKET.minusHours(1), 1, "c", BUCKET.minusMinutes(1), BUCKET.minusMinutes(1)));
+    }
+
+    @Test
+    void combineSumsCountsAndKeepsLatestTitle() {
+        NotificationDigest stored = digest("ALERT", BUCKET, 3, "stored", BUCKET.plusMinutes(1), BUCKET.plusMinutes(20));
+        NotificationDigest broadcasts = digest("ALERT", BUCKET, 1, "broadcast", BUCKET.plusMinutes(10), BUCKET.plusMinutes(30));
+
+        assertThat(NotificationDigestAccumulator.combine(stored, broadcasts)).isEqualTo(
+                digest("ALERT", BUCKET, 4, "broadcast", BUCKET.plusMinutes(1), BUCKET.plusMinutes(30)));
+    }
+
+    private static NotificationDigest digest(String type, LocalDateTime bucket, long count, String latestTitle,
+                                             LocalDateTime firstAt, LocalDateTime lastAt) {
+        return new NotificationDigest(type, bucket, count, latestTitle, firstAt, lastAt);
+    }
+}
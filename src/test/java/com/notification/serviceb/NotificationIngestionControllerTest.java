@@ -0,0 +1,44 @@
+package com.notification.serviceb;
+
+import com.notification.common.BatchResult;
+import com.notification.common.NotificationDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NotificationIngestionControllerTest {
+
+    @Test
+    void timerDoesNotOverflowWhileSlowWriteIsInProgress() {
+        NotificationBatchWriter writer = mock(NotificationBatchWriter.class);
+        // Запись пачки дольше интервала таймера: следующие пачки закрываются, пока concatMap занят
+        when(writer.write(anyLong(), any())).thenAnswer(invocation -> {
+            List<NotificationDto> batch = invocation.getArgument(1);
+            return Mono.delay(Duration.ofMillis(100)).thenReturn(BatchResult.builder()
+                    .batch(invocation.getArgument(0))
+                    .accepted(batch.size())
+                    .build());
+        });
+        NotificationIngestionController controller = new NotificationIngestionController(writer);
+        ReflectionTestUtils.setField(controller, "batchSize", 500);
+        ReflectionTestUtils.setField(controller, "intervalMs", 10L);
+
+        Flux<NotificationDto> notifications = Flux.interval(Duration.ofMillis(2))
+                .take(200)
+                .map(i -> NotificationDto.builder().userId(1L).type("SYSTEM").title("n" + i).build());
+
+        StepVerifier.create(controller.ingest(notifications).map(BatchResult::getAccepted).reduce(Integer::sum))
+                .expectNext(200)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,128 @@
+package com.notification.serviceb;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.common.MarkReadRequest;
+import com.notification.common.NotificationRepository;
+import com.notification.common.R2dbcNotificationStore;
+import com.notification.common.StreamCursor;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Отметка до watermark против H2: created_at хранится с микросекундами, как в Postgres.
+ */
+class NotificationReadMarkerTest {
+
+    private static final Long USER_ID = 1L;
+    private static final LocalDateTime SECOND = LocalDateTime.of(2024, 1, 15, 10, 30);
+
+    private DatabaseClient databaseClient;
+    private NotificationReadMarker readMarker;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactory connectionFactory =
+                ConnectionFactories.get("r2dbc:h2:mem:///" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        databaseClient = DatabaseClient.create(connectionFactory);
+        databaseClient.sql("CREATE TABLE notifications (id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, " +
+                        "type VARCHAR(50) NOT NULL, title VARCHAR(255) NOT NULL, message VARCHAR(4000), " +
+                        "source VARCHAR(50), read BOOLEAN DEFAULT false, created_at TIMESTAMP(6), read_at TIMESTAMP(6))")
+                .then()
+                .block();
+        // Три строки одной секунды и одна следующей
+        insert(1L, SECOND.plusNanos(250_000_000));
+        insert(2L, SECOND.plusNanos(500_123_000));
+        insert(3L, SECOND.plusNanos(750_000_000));
+        insert(4L, SECOND.plusSeconds(1));
+
+        NotificationRepository repository = new R2dbcRepositoryFactory(new R2dbcEntityTemplate(connectionFactory))
+                .getRepository(NotificationRepository.class);
+        RecentFeedCache recentFeedCache = mock(RecentFeedCache.class);
+        when(recentFeedCache.onMarkedReadUpTo(any(), any(), any())).thenReturn(Mono.empty());
+        BroadcastSnapshot broadcastSnapshot = mock(BroadcastSnapshot.class);
+        when(broadcastSnapshot.markReadUpTo(any(), any())).thenReturn(Mono.just(0L));
+
+        ReadEventPublisher readEventPublisher = mock(ReadEventPublisher.class);
+        when(readEventPublisher.publish(any())).thenReturn(Mono.empty());
+
+        readMarker = new NotificationReadMarker(new R2dbcNotificationStore(repository),
+                mock(UnreadCountCache.class), recentFeedCache, broadcastSnapshot, readEventPublisher);
+        ReflectionTestUtils.setField(readMarker, "maxIds", 10_000);
+    }
+
+    @Test
+    void marksRowsInTheSameSecondUpToCursor() {
+        String cursor = new StreamCursor(SECOND.plusNanos(500_123_000), 2L).encode();
+
+        StepVerifier.create(readMarker.markRead(MarkReadRequest.builder().userId(USER_ID).upTo(cursor).build()))
+                .expectNext(2L)
+                .verifyComplete();
+
+        assertThat(readIds()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void parsesIsoWatermarkWithFractionalSeconds() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        MarkReadRequest request = objectMapper.readValue(
+                "{\"userId\":1,\"upToCreatedAt\":\"2024-01-15T10:30:00.750\",\"upToId\":3}", MarkReadRequest.class);
+
+        StepVerifier.create(readMarker.markRead(request))
+                .expectNext(3L)
+                .verifyComplete();
+
+        assertThat(readIds()).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void acceptsLegacyWatermarkFormat() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        MarkReadRequest request = objectMapper.readValue(
+                "{\"userId\":1,\"upToCreatedAt\":\"2024-01-15 10:30:01\",\"upToId\":4}", MarkReadRequest.class);
+
+        assertThat(request.getUpToCreatedAt()).isEqualTo(SECOND.plusSeconds(1));
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        StepVerifier.create(readMarker.markRead(MarkReadRequest.builder().userId(USER_ID).upTo("%%%").build()))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    private void insert(Long id, LocalDateTime createdAt) {
+        databaseClient.sql("INSERT INTO notifications (id, user_id, type, title, created_at) " +
+                        "VALUES (:id, :userId, 'SYSTEM', 'System Notification', :createdAt)")
+                .bind("id", id)
+                .bind("userId", USER_ID)
+                .bind("createdAt", createdAt)
+                .then()
+                .block();
+    }
+
+    private List<Long> readIds() {
+        return databaseClient.sql("SELECT id FROM notifications WHERE read = true ORDER BY id")
+                .map(row -> row.get("id", Long.class))
+                .all()
+                .collectList()
+                .block();
+    }
+}
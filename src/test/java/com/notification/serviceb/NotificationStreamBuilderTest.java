@@ -0,0 +1,188 @@
+package com.notification.serviceb;
+
+import com.notification.common.Notification;
+import com.notification.common.NotificationDigest;
+import com.notification.common.NotificationDto;
+import com.notification.common.NotificationStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NotificationStreamBuilderTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 15, 10, 30);
+
+    private PagedStore store;
+    private NotificationSinkRegistry sinkRegistry;
+    private NotificationStreamBuilder builder;
+
+    @BeforeEach
+    void setUp() {
+        store = new PagedStore(50_000);
+        sinkRegistry = new NotificationSinkRegistry();
+        ReflectionTestUtils.setField(sinkRegistry, "subscriberBufferSize", 16);
+        builder = new NotificationStreamBuilder(store, List.of(), sinkRegistry, new SimpleMeterRegistry(), null);
+        ReflectionTestUtils.setField(builder, "streamSource", "repository");
+        ReflectionTestUtils.setField(builder, "keysetPageSize", 2);
+    }
+
+    @Test
+    void streamsManyKeysetPagesWithoutGrowingTheStack() {
+        // 25 000 страниц, все отдаются синхронно - худший случай для вложенности операторов
+        StepVerifier.create(builder.buildNotificationStream(1L, null, null).map(n -> n.id()))
+                .expectNext(50_000L)
+                .expectNextCount(49_998)
+                .expectNext(1L)
+                .verifyComplete();
+
+        assertThat(store.pages).hasValue(25_001);
+    }
+
+    @Test
+    void stopsReadingPagesAtLimit() {
+        StepVerifier.create(builder.buildNotificationStream(1L, 5, null))
+                .expectNextCount(5)
+                .verifyComplete();
+
+        // Последняя страница урезана до остатка limit, следующая не запрашивается
+        assertThat(store.pages).hasValue(3);
+    }
+
+    @Test
+    void countsBroadcastIntoPersonalDigestGroupBeyondLimit() {
+        LocalDateTime day = CREATED_AT.toLocalDate().atStartOfDay();
+        // SQL отдает группы по убыванию lastAt: ALERT - вторая и под limit=1 не попадает
+        store.digests = List.of(
+                digest("SYSTEM", day, 1, CREATED_AT.plusHours(1)),
+                digest("ALERT", day, 3, CREATED_AT));
+        BroadcastSnapshot snapshot = mock(BroadcastSnapshot.class);
+        when(snapshot.isEmpty()).thenReturn(false);
+        when(snapshot.unreadFor(eq(1L), isNull(), isNull())).thenReturn(Mono.just(List.of(Notification.builder()
+                .id(-1L)
+                .type("ALERT")
+                .title("Broadcast")
+                .createdAt(CREATED_AT.plusHours(2))
+                .build())));
+        NotificationStreamBuilder withBroadcasts = new NotificationStreamBuilder(store, List.of(),
+                new NotificationSinkRegistry(), new SimpleMeterRegistry(), snapshot);
+        ReflectionTestUtils.setField(withBroadcasts, "streamSource", "repository");
+
+        StepVerifier.create(withBroadcasts.buildDigestStream(1L, 1, null, Duration.ofDays(1)))
+                .assertNext(group -> {
+                    assertThat(group.type()).isEqualTo("ALERT");
+                    assertThat(group.count()).isEqualTo(4);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void liveStreamSkipsRowsInsertedAsRead() {
+        StepVerifier.create(builder.buildLiveNotificationStream(1L, null).map(NotificationDto::id))
+                .then(() -> {
+                    sinkRegistry.publish(live(1L, true));
+                    sinkRegistry.publish(live(2L, false));
+                })
+                .expectNext(2L)
+                .thenCancel()
+                .verify();
+    }
+
+    private static NotificationDto live(Long id, boolean read) {
+        return NotificationDto.builder()
+                .id(id)
+                .userId(1L)
+                .type("SYSTEM")
+                .title("System Notification")
+                .read(read)
+                .createdAt(CREATED_AT)
+                .build();
+    }
+
+    private static NotificationDigest digest(String type, LocalDateTime bucket, long count, LocalDateTime lastAt) {
+        return new NotificationDigest(type, bucket, count, type, lastAt, lastAt);
+    }
+
+    /**
+     * Лента из size строк с одинаковым created_at и убывающими id.
+     */
+    private static final class PagedStore implements NotificationStore {
+
+        private final long size;
+        private final AtomicInteger pages = new AtomicInteger();
+        private List<NotificationDigest> digests = List.of();
+
+        private PagedStore(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public Flux<Notification> findUnreadFirstPage(Long userId, int limit) {
+            return page(userId, size, limit);
+        }
+
+        @Override
+        public Flux<Notification> findUnreadPageAfter(Long userId, LocalDateTime createdAt, Long id, int limit) {
+            return page(userId, id - 1, limit);
+        }
+
+        @Override
+        public Flux<Notification> findUnreadByTypeFirstPage(Long userId, String type, int limit) {
+            return findUnreadFirstPage(userId, limit);
+        }
+
+        @Override
+        public Flux<Notification> findUnreadByTypePageAfter(Long userId, String type, LocalDateTime createdAt,
+                                                             Long id, int limit) {
+            return findUnreadPageAfter(userId, createdAt, id, limit);
+        }
+
+        private Flux<Notification> page(Long userId, long fromId, int limit) {
+            pages.incrementAndGet();
+            return Flux.range(0, (int) Math.min(limit, Math.max(fromId, 0)))
+                    .map(i -> Notification.builder()
+                            .id(fromId - i)
+                            .userId(userId)
+                            .type("SYSTEM")
+                            .title("System Notification")
+                            .message("System message")
+                            .source("SYSTEM")
+                            .createdAt(CREATED_AT)
+                            .build());
+        }
+
+        @Override
+        public Flux<NotificationDigest> findUnreadDigest(Long userId, String type, long bucketSeconds, int limit) {
+            return Flux.fromIterable(digests).take(limit);
+        }
+
+        @Override
+        public Mono<Long> markReadByIds(Long userId, Long[] ids, LocalDateTime readAt) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Long> markReadUpTo(Long userId, LocalDateTime createdAt, Long id, LocalDateTime readAt) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Long> countUnreadByUserId(Long userId) {
+            return Mono.empty();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.notification.serviceb;
+
+import com.notification.common.NdjsonNotificationEncoder;
+import com.notification.common.Notification;
+import com.notification.common.NotificationStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Запись и прочтение правят закэшированный срез на месте: ответы после них приходят без нового чтения из БД.
+ */
+class RecentFeedCacheTest {
+
+    private static final Long USER_ID = 7L;
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 15, 10, 30);
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+    private NotificationStore store;
+    private RecentFeedCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        store = mock(NotificationStore.class);
+        when(store.findUnreadFirstPage(eq(USER_ID), anyInt()))
+                .thenAnswer(invocation -> Flux.just(unread(2L, 2), unread(1L, 1)));
+        NotificationStreamBuilder streamBuilder = new NotificationStreamBuilder(store, List.of(),
+                new NotificationSinkRegistry(), new SimpleMeterRegistry(), null);
+        ReflectionTestUtils.setField(streamBuilder, "streamSource", "repository");
+        ReflectionTestUtils.setField(streamBuilder, "keysetPageSize", 10);
+        cache = new RecentFeedCache(streamBuilder, new NdjsonNotificationEncoder(), mock(ObjectProvider.class),
+                new SimpleMeterRegistry(), "repository", true, 3, DataSize.ofMegabytes(1), Duration.ofMinutes(2));
+    }
+
+    @Test
+    void insertedRowsArePatchedIntoCachedFeed() {
+        assertThat(firstPage()).containsExactly(2L, 1L);
+
+        cache.onInserted(List.of(unread(3L, 3), read(4L, 4))).block();
+
+        // Прочитанная при вставке строка в срез не попадает
+        assertThat(firstPage()).containsExactly(3L, 2L, 1L);
+        verify(store, times(1)).findUnreadFirstPage(USER_ID, 4);
+    }
+
+    @Test
+    void markedReadRowsAreRemovedFromCachedFeed() {
+        // Среза еще нет: вставка ничего не кэширует, а "БД" этой строки не знает
+        cache.onInserted(List.of(unread(3L, 3))).block();
+        assertThat(firstPage()).containsExactly(2L, 1L);
+
+        cache.onMarkedRead(USER_ID, Set.of(2L)).block();
+        assertThat(firstPage()).containsExactly(1L);
+
+        cache.onInserted(List.of(unread(3L, 3))).block();
+        cache.onMarkedReadUpTo(USER_ID, CREATED_AT.plusMinutes(1), 1L).block();
+        assertThat(firstPage()).containsExactly(3L);
+        verify(store, times(1)).findUnreadFirstPage(USER_ID, 4);
+    }
+
+    @Test
+    void remoteReadDropsCachedFeed() {
+        assertThat(firstPage()).containsExactly(2L, 1L);
+
+        cache.onRemoteRead(USER_ID);
+
+        assertThat(firstPage()).containsExactly(2L, 1L);
+        verify(store, times(2)).findUnreadFirstPage(USER_ID, 4);
+    }
+
+    // Первая страница только из кэша: fallback в БД считается ошибкой теста
+    private List<Long> firstPage() {
+        return cache.stream(USER_ID, 3, null, null, DefaultDataBufferFactory.sharedInstance,
+                        () -> Flux.error(new AssertionError("feed was not answered from cache")))
+                .map(buffer -> {
+                    Matcher matcher = ID.matcher(buffer.toString(StandardCharsets.UTF_8));
+                    assertThat(matcher.find()).isTrue();
+                    return Long.valueOf(matcher.group(1));
+                })
+                .collectList()
+                .block();
+    }
+
+    private static Notification unread(Long id, int minutes) {
+        return notification(id, minutes, false);
+    }
+
+    private static Notification read(Long id, int minutes) {
+        return notification(id, minutes, true);
+    }
+
+    private static Notification notification(Long id, int minutes, boolean read) {
+        return Notification.builder()
+                .id(id)
+                .userId(USER_ID)
+                .type("SYSTEM")
+                .title("System Notification")
+                .source("SYSTEM")
+                .read(read)
+                .createdAt(CREATED_AT.plusMinutes(minutes))
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.notification.serviceb;
+
+import com.notification.common.Notification;
+import com.notification.common.NotificationStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Порядок событий вокруг собственной вставки: загрузка, INSERT, NOTIFY, onInserted.
+ */
+class UnreadCountCacheTest {
+
+    private static final Long USER_ID = 7L;
+
+    // Число непрочитанных в "БД"
+    private final AtomicLong stored = new AtomicLong(5);
+
+    private NotificationStore store;
+    private UnreadCountCache cache;
+
+    @BeforeEach
+    void setUp() {
+        store = mock(NotificationStore.class);
+        when(store.countUnreadByUserId(USER_ID)).thenAnswer(invocation -> Mono.fromSupplier(stored::get));
+        cache = new UnreadCountCache(store, new SimpleMeterRegistry(), 1_000, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void ownInsertIncrementsCachedCountWithoutReload() {
+        expectCount(5);
+        Map<Long, Long> versions = cache.versionsOf(List.of(USER_ID));
+        stored.incrementAndGet();
+
+        cache.onInserted(List.of(unread(100L)), versions);
+        cache.onRemoteInsert(USER_ID, 100L, false);
+
+        expectCount(6);
+        verify(store, times(1)).countUnreadByUserId(USER_ID);
+    }
+
+    @Test
+    void ownNotifyBeforeOnInsertedDoesNotCountTheRowTwice() {
+        expectCount(5);
+        Map<Long, Long> versions = cache.versionsOf(List.of(USER_ID));
+        stored.incrementAndGet();
+
+        // NOTIFY обогнал onInserted: счетчик сброшен и перечитан уже с новой строкой
+        cache.onRemoteInsert(USER_ID, 100L, false);
+        expectCount(6);
+        cache.onInserted(List.of(unread(100L)), versions);
+
+        expectCount(6);
+    }
+
+    @Test
+    void loadFinishedAfterCommitIsNotIncrementedAgain() {
+        Map<Long, Long> versions = cache.versionsOf(List.of(USER_ID));
+        stored.incrementAndGet();
+        // Первая загрузка после коммита: значение уже включает строку
+        expectCount(6);
+
+        cache.onInserted(List.of(unread(100L)), versions);
+
+        expectCount(6);
+    }
+
+    @Test
+    void loadStartedBeforeCommitIsNotCached() {
+        Sinks.One<Long> beforeCommit = Sinks.one();
+        when(store.countUnreadByUserId(USER_ID)).thenReturn(beforeCommit.asMono(), Mono.fromSupplier(stored::get));
+        Map<Long, Long> versions = cache.versionsOf(List.of(USER_ID));
+        // Загрузка прочитала БД до коммита, а значение записывает уже после onInserted
+        CompletableFuture<Long> load = cache.getUnreadCount(USER_ID).toFuture();
+        stored.incrementAndGet();
+        cache.onInserted(List.of(unread(100L)), versions);
+        beforeCommit.tryEmitValue(5L);
+
+        assertThat(load.join()).isEqualTo(5L);
+        expectCount(6);
+    }
+
+    private void expectCount(long expected) {
+        StepVerifier.create(cache.getUnreadCount(USER_ID))
+                .expectNext(expected)
+                .verifyComplete();
+    }
+
+    private static Notification unread(Long id) {
+        return Notification.builder()
+                .id(id)
+                .userId(USER_ID)
+                .type("SYSTEM")
+                .title("System Notification")
+                .read(false)
+                .build();
+    }
+}